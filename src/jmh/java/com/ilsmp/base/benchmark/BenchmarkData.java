@@ -0,0 +1,79 @@
+package com.ilsmp.base.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.alibaba.fastjson.JSON;
+import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
+import com.github.mars05.crud.hub.common.model.Column;
+import com.github.mars05.crud.hub.common.model.Table;
+
+/**
+ * 基准测试数据, 固定随机种子, 相同参数每次生成的表结构和DDL完全一致
+ */
+public class BenchmarkData {
+    private static final long SEED = 20220815L;
+    private static final int[] TYPES = {Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL,
+            Types.TIMESTAMP, Types.TINYINT, Types.LONGVARCHAR};
+    private static final String[] MYSQL_TYPES = {"bigint", "int", "varchar(64)", "varchar(255)", "decimal(18,2)",
+            "datetime", "tinyint", "text"};
+
+    public static List<Table> tables(int tableCount) {
+        Random random = new Random(SEED);
+        List<Table> tables = new ArrayList<>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            Table table = new Table();
+            table.setTableName("t_bench_" + i);
+            table.setRemarks("基准测试表" + i);
+            int columnCount = 5 + random.nextInt(26);
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int j = 0; j < columnCount; j++) {
+                Column column = new Column();
+                column.setColumnName(j == 0 ? "id" : "col_" + j);
+                column.setRemarks("字段" + j);
+                column.setPrimaryKey(j == 0);
+                column.setType(j == 0 ? Types.BIGINT : TYPES[random.nextInt(TYPES.length)]);
+                columns.add(column);
+            }
+            table.setColumns(columns);
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    public static String mysqlDdl(int tableCount) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(tableCount * 1024);
+        for (int i = 0; i < tableCount; i++) {
+            sb.append("CREATE TABLE `t_bench_").append(i).append("` (\n");
+            sb.append("  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',\n");
+            int columnCount = 5 + random.nextInt(26);
+            for (int j = 1; j < columnCount; j++) {
+                sb.append("  `col_").append(j).append("` ").append(MYSQL_TYPES[random.nextInt(MYSQL_TYPES.length)])
+                        .append(" DEFAULT NULL COMMENT '字段").append(j).append("',\n");
+            }
+            sb.append("  PRIMARY KEY (`id`)\n");
+            sb.append(") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='基准测试表").append(i).append("';\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 插件自带的默认项目模板
+     */
+    public static List<ProjectTemplateDTO> defaultTemplates() {
+        try (InputStream is = BenchmarkData.class.getResourceAsStream("/templates/default_pts.json")) {
+            if (is == null) {
+                throw new IllegalStateException("默认模板加载失败");
+            }
+            return JSON.parseArray(new String(is.readAllBytes(), StandardCharsets.UTF_8), ProjectTemplateDTO.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
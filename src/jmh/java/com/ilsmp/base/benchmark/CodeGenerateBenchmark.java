@@ -0,0 +1,73 @@
+package com.ilsmp.base.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.github.mars05.crud.hub.common.dto.CodeGenerateReqDTO;
+import com.github.mars05.crud.hub.common.dto.FileRespDTO;
+import com.github.mars05.crud.hub.common.dto.FileTemplateDTO;
+import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
+import com.github.mars05.crud.hub.common.enums.FileTemplateTypeEnum;
+import com.github.mars05.crud.hub.common.service.ProjectService;
+import com.ilsmp.base.service.CodeGenerateService;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * CodeGenerateService.generateCode: 默认模板(Spring Boot With MybatisPlus)的全部代码模板 x 合成表结构.
+ * 线程池与BackgroundExecutorService的CPU池大小一致; projectService为改造前的单线程实现, 作为对照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CodeGenerateBenchmark {
+    @Param({"10", "100", "1000"})
+    private int tableCount;
+
+    private final CodeGenerateService codeGenerateService = new CodeGenerateService();
+    private final ProjectService projectService = new ProjectService();
+    private ExecutorService executor;
+    private CodeGenerateReqDTO reqDTO;
+
+    @Setup
+    public void setup() {
+        ProjectTemplateDTO projectTemplate = BenchmarkData.defaultTemplates().get(0);
+        List<String> nameList = projectTemplate.getFileTemplateList().stream()
+                .filter(fileTemplate -> fileTemplate.getType() == FileTemplateTypeEnum.CODE.getCode())
+                .map(FileTemplateDTO::getName)
+                .collect(Collectors.toList());
+        reqDTO = new CodeGenerateReqDTO()
+                .setProjectTemplate(projectTemplate)
+                .setBasePackage("com.ilsmp.bench")
+                .setNameList(nameList)
+                .setTables(BenchmarkData.tables(tableCount));
+        executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<FileRespDTO> generateCode() {
+        return codeGenerateService.generateCode(reqDTO, new EmptyProgressIndicator(ModalityState.NON_MODAL), executor);
+    }
+
+    @Benchmark
+    public List<FileRespDTO> projectService() {
+        return projectService.generateCode(reqDTO);
+    }
+}
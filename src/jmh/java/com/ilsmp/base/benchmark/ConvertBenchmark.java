@@ -0,0 +1,71 @@
+package com.ilsmp.base.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.mars05.crud.hub.common.dto.CodeGenerateReqDTO;
+import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
+import com.github.mars05.crud.hub.common.util.BeanUtils;
+import com.ilsmp.base.dao.model.DataSourceDO;
+import com.ilsmp.base.dao.model.ProjectTemplateDO;
+import com.ilsmp.base.dto.GenerateDTO;
+import com.ilsmp.base.util.ConvertUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * BeanUtils(ModelMapper)与ConvertUtils对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConvertBenchmark {
+    private DataSourceDO dataSourceDO;
+    private ProjectTemplateDO projectTemplateDO;
+    private GenerateDTO generateDTO;
+
+    @Setup
+    public void setup() {
+        dataSourceDO = new DataSourceDO().setId(1L).setDatabaseType("mysql").setName("bench").setHost("127.0.0.1")
+                .setPort(3306).setUsername("root").setPassword("root").setInitDb("bench");
+        projectTemplateDO = ConvertUtils.toProjectTemplateDO(BenchmarkData.defaultTemplates().get(0));
+        generateDTO = new GenerateDTO();
+        generateDTO.setProjectTemplate(BenchmarkData.defaultTemplates().get(0));
+        generateDTO.setBasePackage("com.ilsmp.bench");
+        generateDTO.setTables(BenchmarkData.tables(100));
+    }
+
+    @Benchmark
+    public DataSourceDTO dataSourceBeanUtils() {
+        return BeanUtils.convertBean(dataSourceDO, DataSourceDTO.class);
+    }
+
+    @Benchmark
+    public DataSourceDTO dataSourceConvertUtils() {
+        return ConvertUtils.toDataSourceDTO(dataSourceDO);
+    }
+
+    @Benchmark
+    public ProjectTemplateDO templateCopyBeanUtils() {
+        return BeanUtils.convertBean(projectTemplateDO, ProjectTemplateDO.class);
+    }
+
+    @Benchmark
+    public ProjectTemplateDO templateCopyConvertUtils() {
+        return ConvertUtils.copy(projectTemplateDO);
+    }
+
+    @Benchmark
+    public CodeGenerateReqDTO generateBeanUtils() {
+        return BeanUtils.convertBean(generateDTO, CodeGenerateReqDTO.class);
+    }
+
+    @Benchmark
+    public CodeGenerateReqDTO generateConvertUtils() {
+        return ConvertUtils.toCodeGenerateReqDTO(generateDTO);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ilsmp.base.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.github.mars05.crud.hub.common.util.SqlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DDL解析: mysqldump风格的CREATE TABLE语句
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DdlParseBenchmark {
+    @Param({"10", "100", "1000"})
+    private int tableCount;
+
+    private String ddl;
+
+    @Setup
+    public void setup() {
+        ddl = BenchmarkData.mysqlDdl(tableCount);
+    }
+
+    @Benchmark
+    public List<Table> getTablesByDdl() {
+        return SqlUtils.getTablesByDdl(ddl, DatabaseTypeEnum.MYSQL);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ilsmp.base.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ilsmp.base.dao.mapper.AbstractMapper;
+import com.ilsmp.base.dao.model.ProjectTemplateDO;
+import com.ilsmp.base.util.ConvertUtils;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * AbstractMapper增删改查, 数据放在内存列表中, 不经过CrudSettings
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+    @Param({"100", "1000"})
+    private int size;
+
+    private ListMapper mapper;
+    private Long lastId;
+    private ProjectTemplateDO update;
+    private ProjectTemplateDO insert;
+
+    @Setup
+    public void setup() {
+        mapper = new ListMapper();
+        for (long i = 1; i <= size; i++) {
+            mapper.insert(template(i));
+        }
+        lastId = (long) size;
+        update = template(lastId);
+        insert = template(size + 1L);
+    }
+
+    @Benchmark
+    public ProjectTemplateDO selectById() {
+        return mapper.selectById(lastId);
+    }
+
+    @Benchmark
+    public ProjectTemplateDO selectViewById() {
+        return mapper.selectViewById(lastId);
+    }
+
+    @Benchmark
+    public List<ProjectTemplateDO> selectViewList() {
+        return mapper.selectViewList();
+    }
+
+    @Benchmark
+    public List<ProjectTemplateDO> selectList() {
+        return mapper.selectList();
+    }
+
+    @Benchmark
+    public void updateById() {
+        mapper.updateById(update);
+    }
+
+    @Benchmark
+    public void insertAndDelete() {
+        mapper.insert(insert);
+        mapper.deleteById(insert.getId());
+    }
+
+    private static ProjectTemplateDO template(long id) {
+        ProjectTemplateDO projectTemplateDO = new ProjectTemplateDO();
+        projectTemplateDO.setId(id);
+        projectTemplateDO.setName("template-" + id);
+        projectTemplateDO.setDescription("基准测试模板" + id);
+        projectTemplateDO.setProjectType(2);
+        projectTemplateDO.setOrganizationId(id % 10);
+        projectTemplateDO.setOrganizationName("org-" + id % 10);
+        projectTemplateDO.setFileTemplatesHash(Long.toHexString(id));
+        return projectTemplateDO;
+    }
+
+    private static class ListMapper extends AbstractMapper<ProjectTemplateDO> {
+        private final List<ProjectTemplateDO> list = new ArrayList<>();
+
+        @NotNull
+        @Override
+        protected List<ProjectTemplateDO> getDataList() {
+            return list;
+        }
+
+        @Override
+        protected ProjectTemplateDO copy(ProjectTemplateDO data) {
+            return ConvertUtils.copy(data);
+        }
+
+        @Override
+        protected void copyProperties(ProjectTemplateDO source, ProjectTemplateDO target) {
+            ConvertUtils.copyProperties(source, target);
+        }
+
+        @Override
+        protected Serializable getId(ProjectTemplateDO projectTemplateDO) {
+            return projectTemplateDO.getId();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ilsmp.base.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.alibaba.fastjson.JSON;
+import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
+import com.ilsmp.base.dao.mapper.ProjectTemplateMapper;
+import com.ilsmp.base.dao.model.ProjectTemplateDO;
+import com.ilsmp.base.dto.ProjectTemplateRespDTO;
+import com.ilsmp.base.service.ProjectTemplateService;
+import com.ilsmp.base.service.TemplateStoreService;
+import com.ilsmp.base.util.ConvertUtils;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * ProjectTemplateService.detail: 未命中缓存时从TemplateStoreService读取并解析fileTemplates, 命中时只复制头信息.
+ * 模板头信息放在内存中的mapper里, 模板内容写在临时目录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TemplateDetailBenchmark {
+    private Path root;
+    private ListMapper mapper;
+    private TemplateStoreService templateStoreService;
+    private ProjectTemplateService projectTemplateService;
+    private Long id;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("template-detail-benchmark");
+        mapper = new ListMapper();
+        templateStoreService = new TemplateStoreService(root);
+        ProjectTemplateDTO projectTemplate = BenchmarkData.defaultTemplates().get(0);
+        ProjectTemplateDO projectTemplateDO = ConvertUtils.toProjectTemplateDO(projectTemplate);
+        projectTemplateDO.setFileTemplatesHash(templateStoreService.save(JSON.toJSONString(projectTemplate.getFileTemplateList())));
+        mapper.insert(projectTemplateDO);
+        id = projectTemplateDO.getId();
+        projectTemplateService = new ProjectTemplateService(mapper, templateStoreService);
+        projectTemplateService.detail(id);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 每次使用新的service, 缓存为空
+     */
+    @Benchmark
+    public ProjectTemplateRespDTO detail() {
+        return new ProjectTemplateService(mapper, templateStoreService).detail(id);
+    }
+
+    @Benchmark
+    public ProjectTemplateRespDTO cachedDetail() {
+        return projectTemplateService.detail(id);
+    }
+
+    private static class ListMapper extends ProjectTemplateMapper {
+        private final List<ProjectTemplateDO> list = new ArrayList<>();
+
+        @NotNull
+        @Override
+        protected List<ProjectTemplateDO> getDataList() {
+            return list;
+        }
+    }
+}
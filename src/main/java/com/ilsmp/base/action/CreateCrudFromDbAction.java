@@ -2,13 +2,13 @@ package com.ilsmp.base.action;
 
 import java.util.List;
 
-import com.github.mars05.crud.hub.common.dto.CodeGenerateReqDTO;
 import com.github.mars05.crud.hub.common.dto.FileRespDTO;
-import com.github.mars05.crud.hub.common.service.ProjectService;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.ilsmp.base.dto.GenerateDTO;
+import com.ilsmp.base.dto.GenerateResultDTO;
+import com.ilsmp.base.service.CodeGenerateService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudActionDialog;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.IdeView;
 import com.intellij.notification.Notification;
@@ -23,6 +23,7 @@ import com.intellij.openapi.actionSystem.Presentation;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtil;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.DumbAwareRunnable;
@@ -30,13 +31,12 @@ import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileManager;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 public class CreateCrudFromDbAction extends AnAction {
     private static final String NOTIFICATION_GROUP = "Base Code Generation";
-    private final ProjectService projectService = CrudUtils.getBean(ProjectService.class);
+    private final CodeGenerateService codeGenerateService = CrudUtils.getBean(CodeGenerateService.class);
 
     @Override
     public void update(AnActionEvent e) {
@@ -97,17 +97,16 @@ public class CreateCrudFromDbAction extends AnAction {
                     try {
                         GenerateDTO currentGenerate = CrudSettings.currentGenerate();
 
-                        List<FileRespDTO> fileRespDTOList = projectService.generateCode(BeanUtils.convertBean(currentGenerate,
-                                CodeGenerateReqDTO.class));
-                        List<FileRespDTO> successList = projectService.processFileToDisk(currentGenerate.getProjectPath(),
-                                fileRespDTOList);
+                        List<FileRespDTO> fileRespDTOList = codeGenerateService.generateCode(ConvertUtils.toCodeGenerateReqDTO(currentGenerate), indicator);
+                        GenerateResultDTO resultDTO = codeGenerateService.processFileToDisk(project,
+                                currentGenerate.getProjectPath(), fileRespDTOList);
 
-                        Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "代码生成完成", "生成数量: " + successList.size()
-                                + "\n失败数量: " + (fileRespDTOList.size() - successList.size())
+                        Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "代码生成完成", "生成数量: " + resultDTO.getWrittenList().size()
+                                + "\n未变更数量: " + resultDTO.getUnchangedList().size()
+                                + "\n跳过数量(已手动修改): " + resultDTO.getSkippedList().size()
                                 + "\n项目路径: " + currentGenerate.getProjectPath(), NotificationType.INFORMATION), project);
-                        //优化生成的所有Java类
-                        CrudUtils.doOptimize(project);
-                        VirtualFileManager.getInstance().refreshWithoutFileWatcher(true);
+                    } catch (ProcessCanceledException ex) {
+                        throw ex;
                     } catch (Exception ex) {
                         Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "代码生成失败", ex.getMessage(), NotificationType.INFORMATION), project);
                     } finally {
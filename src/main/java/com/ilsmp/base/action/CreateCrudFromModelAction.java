@@ -1,37 +1,43 @@
 package com.ilsmp.base.action;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import com.github.mars05.crud.hub.common.model.Column;
 import com.intellij.openapi.actionSystem.DataKeys;
-import com.intellij.psi.PsiAnnotation;
-import com.intellij.psi.PsiAnnotationMemberValue;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiJavaFile;
-import com.github.mars05.crud.hub.common.dto.CodeGenerateReqDTO;
 import com.github.mars05.crud.hub.common.dto.FileRespDTO;
 import com.github.mars05.crud.hub.common.exception.BizException;
 import com.github.mars05.crud.hub.common.model.Table;
-import com.github.mars05.crud.hub.common.service.ProjectService;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
-import com.github.mars05.crud.hub.common.util.JavaTypeUtils;
-import com.google.common.base.CaseFormat;
 import com.ilsmp.base.dto.GenerateDTO;
+import com.ilsmp.base.dto.GenerateResultDTO;
+import com.ilsmp.base.index.EntityTableIndex;
+import com.ilsmp.base.service.CodeGenerateService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudActionDialog;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.EntityTableUtils;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.ide.highlighter.JavaFileType;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
 import com.intellij.notification.Notifications;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.actionSystem.LangDataKeys;
-import com.intellij.openapi.actionSystem.Presentation;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.UpdateInBackground;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtil;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.DumbAwareRunnable;
@@ -40,36 +46,38 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
-import com.intellij.psi.javadoc.PsiDocComment;
-import com.intellij.psi.javadoc.PsiDocToken;
+import com.intellij.psi.search.GlobalSearchScopesCore;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-public class CreateCrudFromModelAction extends AnAction {
+public class CreateCrudFromModelAction extends AnAction implements UpdateInBackground {
     private static final String NOTIFICATION_GROUP = "Base Code Generation";
-    private final ProjectService projectService = CrudUtils.getBean(ProjectService.class);
+    private final CodeGenerateService codeGenerateService = CrudUtils.getBean(CodeGenerateService.class);
 
+    /**
+     * 只按文件类型判断, 不加载PSI; 在后台线程执行, 选中大量文件时不阻塞菜单
+     */
     @Override
     public void update(AnActionEvent e) {
-        Project project = e.getProject();
-        final Presentation presentation = e.getPresentation();
-        VirtualFile[] virtualFiles = e.getData(LangDataKeys.VIRTUAL_FILE_ARRAY);
+        e.getPresentation().setEnabled(e.getProject() != null && isAvailable(e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY)));
+    }
+
+    /**
+     * 全部为目录或Java文件时可用
+     */
+    private boolean isAvailable(VirtualFile[] virtualFiles) {
         if (virtualFiles == null || virtualFiles.length == 0) {
-            presentation.setEnabled(false);
-        } else {
-            for (VirtualFile virtualFile : virtualFiles) {
-                if (virtualFile.isDirectory() || !(PsiManager.getInstance(project).findFile(virtualFile) instanceof PsiJavaFile)) {
-                    presentation.setEnabled(false);
-                    return;
-                }
+            return false;
+        }
+        for (VirtualFile virtualFile : virtualFiles) {
+            if (!virtualFile.isDirectory() && virtualFile.getFileType() != JavaFileType.INSTANCE) {
+                return false;
             }
-            presentation.setEnabled(true);
         }
+        return true;
     }
 
     @Override
@@ -91,29 +99,85 @@ public class CreateCrudFromModelAction extends AnAction {
         generateDTO.setTables(null);
         generateDTO.setTableSource(3);
 
-        try {
-            List<Table> tables = new ArrayList<>();
-            for (VirtualFile virtualFile : virtualFiles) {
-                PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
-                if (!(psiFile instanceof PsiJavaFile)) {
-                    throw new BizException("实体类错误: " + virtualFile.getName());
-                }
-                TableVisitor tableVisitor = new TableVisitor();
-                psiFile.accept(tableVisitor);
+        String modulePath = projectPath;
+        CrudUtils.runInBackground(new Task.Backgroundable(project, "实体类解析中...", true) {
+            private List<Table> tables;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                tables = scanTables(project, virtualFiles, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                CrudSettings.currentGenerate().setTables(tables);
+                generate(project, module, basePackage, modulePath);
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                Messages.showErrorDialog(project, error.getMessage(), "错误");
+            }
+        });
+    }
 
-                Table table = tableVisitor.getTable();
-                if (tables.stream().anyMatch(table1 -> table1.getTableName().equals(table.getTableName()))) {
+    /**
+     * 每个文件单独在可中断的读操作中解析, 多个文件并行, 结果顺序与选中文件一致.
+     * 优先读取EntityTableIndex, 没有实体注解的类再解析PSI; 选中目录时取目录下所有已索引的实体类
+     */
+    @SuppressWarnings("unchecked")
+    private List<Table> scanTables(Project project, VirtualFile[] virtualFiles, ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+        List<Table>[] results = new List[virtualFiles.length];
+        AtomicInteger finished = new AtomicInteger();
+        List<Integer> indexes = IntStream.range(0, virtualFiles.length).boxed().collect(Collectors.toList());
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indexes, indicator, index -> {
+            VirtualFile virtualFile = virtualFiles[index];
+            results[index] = ReadAction.nonBlocking(() -> scanFile(project, virtualFile))
+                    .inSmartMode(project).wrapProgress(indicator).executeSynchronously();
+            indicator.setText2(virtualFile.getName());
+            indicator.setFraction((double) finished.incrementAndGet() / virtualFiles.length);
+            return true;
+        });
+
+        List<Table> tables = new ArrayList<>(results.length);
+        Set<String> tableNames = new HashSet<>(results.length * 2);
+        for (List<Table> list : results) {
+            for (Table table : list) {
+                if (!tableNames.add(table.getTableName())) {
                     throw new BizException("[" + table.getTableName() + "]表名重复");
                 }
-
                 tables.add(table);
             }
-            CrudSettings.currentGenerate().setTables(tables);
-        } catch (Exception exception) {
-            Messages.showErrorDialog(exception.getMessage(), "错误");
-            return;
         }
+        if (tables.isEmpty()) {
+            throw new BizException("没有找到实体类");
+        }
+        return tables;
+    }
+
+    private List<Table> scanFile(Project project, VirtualFile virtualFile) {
+        if (virtualFile.isDirectory()) {
+            return EntityTableIndex.getTables(project, GlobalSearchScopesCore.directoryScope(project, virtualFile, true));
+        }
+        Table table = EntityTableIndex.getTable(project, virtualFile);
+        if (table != null) {
+            return Collections.singletonList(table);
+        }
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+        if (!(psiFile instanceof PsiJavaFile)) {
+            throw new BizException("实体类错误: " + virtualFile.getName());
+        }
+        TableVisitor tableVisitor = new TableVisitor();
+        psiFile.accept(tableVisitor);
+        if (tableVisitor.getTable() == null) {
+            throw new BizException("实体类错误: " + virtualFile.getName());
+        }
+        return Collections.singletonList(tableVisitor.getTable());
+    }
 
+    private void generate(Project project, Module module, String basePackage, String projectPath) {
         if (StringUtils.isNotBlank(basePackage) && StringUtils.isBlank(CrudSettings.currentGenerate().getBasePackage())) {
             CrudSettings.currentGenerate().setBasePackage(basePackage);
         }
@@ -132,17 +196,16 @@ public class CreateCrudFromModelAction extends AnAction {
                     try {
                         GenerateDTO currentGenerate = CrudSettings.currentGenerate();
 
-                        List<FileRespDTO> fileRespDTOList = projectService.generateCode(BeanUtils.convertBean(currentGenerate,
-                                CodeGenerateReqDTO.class));
-                        List<FileRespDTO> successList = projectService.processFileToDisk(currentGenerate.getProjectPath(),
-                                fileRespDTOList);
+                        List<FileRespDTO> fileRespDTOList = codeGenerateService.generateCode(ConvertUtils.toCodeGenerateReqDTO(currentGenerate), indicator);
+                        GenerateResultDTO resultDTO = codeGenerateService.processFileToDisk(project,
+                                currentGenerate.getProjectPath(), fileRespDTOList);
 
-                        Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "代码生成完成", "生成数量: " + successList.size()
-                                + "\n失败数量: " + (fileRespDTOList.size() - successList.size())
+                        Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "代码生成完成", "生成数量: " + resultDTO.getWrittenList().size()
+                                + "\n未变更数量: " + resultDTO.getUnchangedList().size()
+                                + "\n跳过数量(已手动修改): " + resultDTO.getSkippedList().size()
                                 + "\n项目路径: " + currentGenerate.getProjectPath(), NotificationType.INFORMATION), project);
-                        //优化生成的所有Java类
-                        CrudUtils.doOptimize(project);
-                        VirtualFileManager.getInstance().refreshWithoutFileWatcher(true);
+                    } catch (ProcessCanceledException ex) {
+                        throw ex;
                     } catch (Exception ex) {
                         Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "代码生成失败", ex.getMessage(), NotificationType.INFORMATION), project);
                     } finally {
@@ -161,113 +224,22 @@ public class CreateCrudFromModelAction extends AnAction {
         }
 
         @Override
-        public void visitClass(PsiClass aClass) {
-            if (table != null || aClass == null || aClass.getName() == null) {
-                return;
-            }
-            Table t = new Table();
-            t.setTableName(getTableName(aClass));
-            t.setRemarks(getRemarks(aClass.getDocComment()));
-            t.setColumns(getColumns(aClass.getFields()));
-//            boolean key = false;
-//            for (Column column : t.getColumns()) {
-//                if (column.getPrimaryKey() != null && column.getPrimaryKey()) {
-//                    key = true;
-//                    break;
-//                }
-//            }
-//            if (!key) {
-//                throw new BizException("[" + aClass.getName() + "]实体类中没有找到主键");
-//            }
-            this.table = t;
-        }
-
-        private String getRemarks(PsiDocComment comment) {
-            if (comment != null) {
-                for (PsiElement descriptionElement : comment.getDescriptionElements()) {
-                    if (descriptionElement instanceof PsiDocToken) {
-                        return descriptionElement.getText().trim();
-                    }
-                }
-            }
-            return "";
-        }
-
-        private String getTableName(PsiClass aClass) {
-            for (PsiAnnotation annotation : aClass.getAnnotations()) {
-                if (annotation.getQualifiedName().endsWith("TableName")) {
-                    PsiAnnotationMemberValue value = annotation.findAttributeValue("value");
-                    if (value == null) {
-                        break;
-                    }
-                    return value.getText().replaceAll("(^\"|\"$)", "");
-                } else if (annotation.getQualifiedName().endsWith("Table")) {
-                    PsiAnnotationMemberValue value = annotation.findAttributeValue("name");
-                    if (value == null) {
-                        break;
-                    }
-                    return value.getText().replaceAll("(^\"|\"$)", "");
-                }
-            }
-            return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, aClass.getName());
-        }
-
-        private List<Column> getColumns(PsiField[] fields) {
-            List<Column> columns = new ArrayList<>();
-            for (PsiField field : fields) {
-                if (null == field.getName()) {
-                    continue;
-                }
-                Integer ofType = null;
-                try {
-                    ofType = JavaTypeUtils.ofType(Class.forName(field.getType().getCanonicalText()));
-                } catch (ClassNotFoundException ignored) {
-                }
-                if (ofType == null) {
-                    continue;
-                }
-                Column column = new Column();
-                column.setColumnName(getColumnName(field));
-                column.setRemarks(getRemarks(field.getDocComment()));
-                column.setType(ofType);
-                Boolean primaryKey = getPrimaryKey(field);
-                if (primaryKey) {
-                    columns.forEach(c -> c.setPrimaryKey(false));
-                }
-                column.setPrimaryKey(primaryKey);
-                columns.add(column);
-            }
-            return columns;
-        }
-
-        private Boolean getPrimaryKey(PsiField field) {
-            for (PsiAnnotation annotation : field.getAnnotations()) {
-                if (annotation.getQualifiedName().endsWith("TableId")) {
-                    return true;
-                } else if (annotation.getQualifiedName().endsWith("Id")) {
-                    return true;
+        public void visitJavaFile(PsiJavaFile file) {
+            //只看顶层类, 不遍历package、import和类体
+            for (PsiClass aClass : file.getClasses()) {
+                visitClass(aClass);
+                if (table != null) {
+                    return;
                 }
             }
-            return "id".equals(getColumnName(field));
         }
 
-        private String getColumnName(PsiField field) {
-            for (PsiAnnotation annotation : field.getAnnotations()) {
-                if (annotation.getQualifiedName().endsWith("TableField")) {
-                    PsiAnnotationMemberValue value = annotation.findAttributeValue("value");
-                    if (value == null) {
-                        break;
-                    }
-                    return value.getText().replaceAll("(^\"|\"$)", "");
-                } else if (annotation.getQualifiedName().endsWith("Column")) {
-                    PsiAnnotationMemberValue value = annotation.findAttributeValue("name");
-                    if (value == null) {
-                        break;
-                    }
-                    return value.getText().replaceAll("(^\"|\"$)", "");
-                }
+        @Override
+        public void visitClass(PsiClass aClass) {
+            if (table != null || aClass == null || aClass.getName() == null) {
+                return;
             }
-            return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName());
+            this.table = EntityTableUtils.getTable(aClass, true);
         }
     }
 
@@ -1,66 +1,226 @@
 package com.ilsmp.base.dao.mapper;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.github.mars05.crud.hub.common.exception.BizException;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
+import com.ilsmp.base.util.ConvertUtils;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * 基于持久化列表的存储, 按id建立哈希索引, 子类可通过getIndexes声明二级索引.
+ * 索引在首次访问或持久化列表被替换(loadState)时重建, 写操作同时维护列表和索引.
+ * select*返回副本(由子类逐字段复制); selectView*返回内部对象, 只能读, 用于马上转换成DTO的场景
+ */
 public abstract class AbstractMapper<T> {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<T> indexedList;
+    private int indexedSize;
+    private Map<Serializable, T> idIndex = Collections.emptyMap();
+    private Map<String, Map<Serializable, List<T>>> secondaryIndexes = Collections.emptyMap();
+
     @NotNull
     protected abstract List<T> getDataList();
 
-    @NotNull
-    protected abstract Class<T> getDataClass();
+    protected abstract T copy(T t);
+
+    protected abstract void copyProperties(T source, T target);
 
     protected abstract Serializable getId(T t);
 
+    /**
+     * 二级索引, 索引名 -> 取值函数
+     */
+    @NotNull
+    protected Map<String, Function<T, Serializable>> getIndexes() {
+        return Collections.emptyMap();
+    }
+
     public T selectById(Serializable id) {
-        T data = getDataList().stream().filter(dataDO -> getId(dataDO).equals(id)).findFirst().orElse(null);
-        return BeanUtils.convertBean(data, getDataClass());
+        return copy(selectViewById(id));
     }
 
+    public T selectViewById(Serializable id) {
+        return read(() -> idIndex.get(id));
+    }
+
+    public boolean existsById(Serializable id) {
+        return read(() -> idIndex.containsKey(id));
+    }
 
     public List<T> selectList() {
-        return BeanUtils.convertList(getDataList(), getDataClass());
+        return ConvertUtils.convertList(selectViewList(), this::copy);
+    }
+
+    public List<T> selectViewList() {
+        return read(() -> Collections.unmodifiableList(new ArrayList<>(idIndex.values())));
+    }
+
+    public List<T> selectListByIndex(String index, Serializable key) {
+        List<T> list = read(() -> {
+            Map<Serializable, List<T>> map = secondaryIndexes.get(index);
+            if (map == null) {
+                throw new IllegalArgumentException("索引不存在: " + index);
+            }
+            return new ArrayList<>(map.getOrDefault(key, Collections.emptyList()));
+        });
+        return ConvertUtils.convertList(list, this::copy);
+    }
+
+    public boolean existsByIndex(String index, Serializable key) {
+        return read(() -> {
+            Map<Serializable, List<T>> map = secondaryIndexes.get(index);
+            if (map == null) {
+                throw new IllegalArgumentException("索引不存在: " + index);
+            }
+            return map.containsKey(key);
+        });
     }
 
     public void insert(T data) {
-        T newDO = BeanUtils.convertBean(data, getDataClass());
+        T newDO = copy(data);
         if (null == getId(data)) {
             throw new BizException("ID不能为空");
         }
-        if (getDataList().stream().anyMatch(oldDO -> getId(oldDO).equals(getId(newDO)))) {
-            throw new BizException("ID冲突");
+        write(() -> {
+            if (idIndex.containsKey(getId(newDO))) {
+                throw new BizException("ID冲突");
+            }
+            getDataList().add(newDO);
+            indexedSize++;
+            idIndex.put(getId(newDO), newDO);
+            addSecondary(newDO);
+        });
+    }
+
+    /**
+     * 批量新增, 在一次写锁内完成; 有ID冲突时整批都不写入
+     */
+    public void insertBatch(List<T> dataList) {
+        List<T> newDOList = ConvertUtils.convertList(dataList, this::copy);
+        for (T newDO : newDOList) {
+            if (null == getId(newDO)) {
+                throw new BizException("ID不能为空");
+            }
         }
-        getDataList().add(newDO);
+        write(() -> {
+            Map<Serializable, T> newIndex = new LinkedHashMap<>(newDOList.size() * 2);
+            for (T newDO : newDOList) {
+                if (idIndex.containsKey(getId(newDO)) || newIndex.put(getId(newDO), newDO) != null) {
+                    throw new BizException("ID冲突");
+                }
+            }
+            getDataList().addAll(newDOList);
+            indexedSize += newDOList.size();
+            idIndex.putAll(newIndex);
+            newDOList.forEach(this::addSecondary);
+        });
     }
 
     public void updateById(T data) {
-        T newDO = BeanUtils.convertBean(data, getDataClass());
+        T newDO = copy(data);
         if (null == getId(newDO)) {
             throw new BizException("ID不能为空");
         }
-        T oldDO = getDataList().stream().filter(old -> getId(old).equals(getId(newDO))).findFirst().orElse(null);
-        if (oldDO == null) {
-            throw new BizException("目标不存在,ID:" + getId(newDO));
-        }
-        BeanUtils.copyProperties(newDO, oldDO);
+        write(() -> {
+            T oldDO = idIndex.get(getId(newDO));
+            if (oldDO == null) {
+                throw new BizException("目标不存在,ID:" + getId(newDO));
+            }
+            removeSecondary(oldDO);
+            copyProperties(newDO, oldDO);
+            addSecondary(oldDO);
+        });
     }
 
     public void deleteById(Serializable id) {
-        int delIndex = -1;
-        for (int i = 0; i < getDataList().size(); i++) {
-            if (getId(getDataList().get(i)).equals(id)) {
-                delIndex = i;
-                break;
+        write(() -> {
+            T oldDO = idIndex.remove(id);
+            if (oldDO == null) {
+                throw new BizException("目标不存在,ID:" + id);
             }
+            if (getDataList().removeIf(old -> old == oldDO)) {
+                indexedSize--;
+            }
+            removeSecondary(oldDO);
+        });
+    }
+
+    private <R> R read(Supplier<R> supplier) {
+        lock.readLock().lock();
+        try {
+            if (isIndexed()) {
+                return supplier.get();
+            }
+        } finally {
+            lock.readLock().unlock();
         }
-        if (delIndex < 0) {
-            throw new BizException("目标不存在,ID:" + id);
+        lock.writeLock().lock();
+        try {
+            reindexIfNeeded();
+            return supplier.get();
+        } finally {
+            lock.writeLock().unlock();
         }
-        getDataList().remove(delIndex);
+    }
+
+    private void write(Runnable runnable) {
+        lock.writeLock().lock();
+        try {
+            reindexIfNeeded();
+            runnable.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isIndexed() {
+        List<T> list = getDataList();
+        return list == indexedList && list.size() == indexedSize;
+    }
+
+    private void reindexIfNeeded() {
+        if (isIndexed()) {
+            return;
+        }
+        List<T> list = getDataList();
+        idIndex = new LinkedHashMap<>(list.size() * 2);
+        for (T t : list) {
+            idIndex.put(getId(t), t);
+        }
+        secondaryIndexes = new HashMap<>();
+        getIndexes().keySet().forEach(index -> secondaryIndexes.put(index, new HashMap<>()));
+        list.forEach(this::addSecondary);
+        indexedList = list;
+        indexedSize = list.size();
+    }
+
+    private void addSecondary(T t) {
+        getIndexes().forEach((index, keyFunction) -> secondaryIndexes.get(index)
+                .computeIfAbsent(keyFunction.apply(t), k -> new ArrayList<>()).add(t));
+    }
+
+    private void removeSecondary(T t) {
+        getIndexes().forEach((index, keyFunction) -> {
+            Map<Serializable, List<T>> map = secondaryIndexes.get(index);
+            Serializable key = keyFunction.apply(t);
+            List<T> list = map.get(key);
+            if (list != null) {
+                list.removeIf(old -> old == t);
+                if (list.isEmpty()) {
+                    map.remove(key);
+                }
+            }
+        });
     }
 
 }
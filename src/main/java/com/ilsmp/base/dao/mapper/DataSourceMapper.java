@@ -5,6 +5,7 @@ import java.util.List;
 
 import com.ilsmp.base.dao.model.DataSourceDO;
 import com.ilsmp.base.setting.CrudSettings;
+import com.ilsmp.base.util.ConvertUtils;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.jetbrains.annotations.NotNull;
@@ -22,10 +23,14 @@ public class DataSourceMapper extends AbstractMapper<DataSourceDO> {
         return CrudSettings.getDataSources();
     }
 
-    @NotNull
     @Override
-    protected Class<DataSourceDO> getDataClass() {
-        return DataSourceDO.class;
+    protected DataSourceDO copy(DataSourceDO data) {
+        return ConvertUtils.copy(data);
+    }
+
+    @Override
+    protected void copyProperties(DataSourceDO source, DataSourceDO target) {
+        ConvertUtils.copyProperties(source, target);
     }
 
     @Override
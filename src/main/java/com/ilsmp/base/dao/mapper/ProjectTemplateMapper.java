@@ -1,23 +1,39 @@
 package com.ilsmp.base.dao.mapper;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import com.ilsmp.base.dao.model.ProjectTemplateDO;
 import com.ilsmp.base.setting.CrudSettings;
+import com.ilsmp.base.util.ConvertUtils;
 import org.jetbrains.annotations.NotNull;
 
 public class ProjectTemplateMapper extends AbstractMapper<ProjectTemplateDO> {
+    private static final String INDEX_FILE_TEMPLATES_HASH = "fileTemplatesHash";
+    private static final Map<String, Function<ProjectTemplateDO, Serializable>> INDEXES =
+            Collections.singletonMap(INDEX_FILE_TEMPLATES_HASH, ProjectTemplateDO::getFileTemplatesHash);
+
+    public boolean existsByFileTemplatesHash(String hash) {
+        return existsByIndex(INDEX_FILE_TEMPLATES_HASH, hash);
+    }
+
     @NotNull
     @Override
     protected List<ProjectTemplateDO> getDataList() {
         return CrudSettings.getProjectTemplates();
     }
 
-    @NotNull
     @Override
-    protected Class<ProjectTemplateDO> getDataClass() {
-        return ProjectTemplateDO.class;
+    protected ProjectTemplateDO copy(ProjectTemplateDO data) {
+        return ConvertUtils.copy(data);
+    }
+
+    @Override
+    protected void copyProperties(ProjectTemplateDO source, ProjectTemplateDO target) {
+        ConvertUtils.copyProperties(source, target);
     }
 
     @Override
@@ -25,4 +41,10 @@ public class ProjectTemplateMapper extends AbstractMapper<ProjectTemplateDO> {
         return projectTemplateDO.getId();
     }
 
+    @NotNull
+    @Override
+    protected Map<String, Function<ProjectTemplateDO, Serializable>> getIndexes() {
+        return INDEXES;
+    }
+
 }
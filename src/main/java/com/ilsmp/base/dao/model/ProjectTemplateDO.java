@@ -11,7 +11,11 @@ public class ProjectTemplateDO {
     private String name;
     private String description;
     private Integer projectType;
+    /**
+     * 旧版本数据, 迁移到TemplateStoreService后为空
+     */
     private String fileTemplates;
+    private String fileTemplatesHash;
 
     private Long organizationId;
     private String organizationName;
@@ -0,0 +1,27 @@
+package com.ilsmp.base.dto;
+
+import lombok.Data;
+
+@Data
+public class ExecutorMetricsDTO {
+    private String name;
+    private int poolSize;
+    private int activeCount;
+    /**
+     * 当前排队的任务数
+     */
+    private int queueSize;
+    private int queueCapacity;
+    private long completedCount;
+    /**
+     * 队列满时由提交线程(或IDE共享线程池)执行的任务数
+     */
+    private long callerRunsCount;
+    /**
+     * 任务从提交到开始执行的平均和最长等待时间
+     */
+    private double avgWaitMillis;
+    private long maxWaitMillis;
+    private double avgRunMillis;
+
+}
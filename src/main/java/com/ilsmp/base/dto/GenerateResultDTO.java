@@ -0,0 +1,24 @@
+package com.ilsmp.base.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mars05.crud.hub.common.dto.FileRespDTO;
+import lombok.Data;
+
+@Data
+public class GenerateResultDTO {
+    /**
+     * 新增或内容变化后写入的文件
+     */
+    private List<FileRespDTO> writtenList = new ArrayList<>();
+    /**
+     * 内容未变化, 未写入
+     */
+    private List<FileRespDTO> unchangedList = new ArrayList<>();
+    /**
+     * 已存在且被手动修改过(或非本插件生成), 保留原文件
+     */
+    private List<FileRespDTO> skippedList = new ArrayList<>();
+
+}
@@ -0,0 +1,23 @@
+package com.ilsmp.base.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class TemplateImportResultDTO {
+    /**
+     * 导入成功的模板名称
+     */
+    private List<String> importedList = new ArrayList<>();
+    /**
+     * id或模板内容已存在, 或与本批次中的模板重复, 未导入
+     */
+    private List<String> skippedList = new ArrayList<>();
+    /**
+     * 拉取失败的原因
+     */
+    private List<String> failedList = new ArrayList<>();
+
+}
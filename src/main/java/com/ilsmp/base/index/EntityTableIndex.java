@@ -0,0 +1,178 @@
+package com.ilsmp.base.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.github.mars05.crud.hub.common.model.Column;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.ilsmp.base.util.ConvertUtils;
+import com.ilsmp.base.util.EntityTableUtils;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 实体类索引, key为表名, value为解析好的Table.
+ * 只索引带@TableName、@Table或@Entity注解的顶层类, 查询时不需要加载PSI, 需在smart mode下使用
+ */
+public class EntityTableIndex extends FileBasedIndexExtension<String, Table> {
+    public static final ID<String, Table> NAME = ID.create("base.EntityTableIndex");
+
+    /**
+     * 文件中的实体表, 没有时返回null
+     */
+    @Nullable
+    public static Table getTable(Project project, VirtualFile virtualFile) {
+        Map<String, Table> data = FileBasedIndex.getInstance().getFileData(NAME, virtualFile, project);
+        return data.isEmpty() ? null : ConvertUtils.copy(data.values().iterator().next());
+    }
+
+    /**
+     * 范围内的所有实体表, 按文件路径排序
+     */
+    public static List<Table> getTables(Project project, GlobalSearchScope scope) {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        List<Pair<String, Table>> list = new ArrayList<>();
+        for (String key : index.getAllKeys(NAME, project)) {
+            index.processValues(NAME, key, null, (file, table) -> {
+                list.add(Pair.create(file.getPath(), ConvertUtils.copy(table)));
+                return true;
+            }, scope);
+        }
+        list.sort(Comparator.comparing(pair -> pair.first));
+        List<Table> tables = new ArrayList<>(list.size());
+        list.forEach(pair -> tables.add(pair.second));
+        return tables;
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Table> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Table, FileContent> getIndexer() {
+        return fileContent -> {
+            //先按文本过滤, 大多数Java文件不用构建PSI
+            CharSequence text = fileContent.getContentAsText();
+            if (!StringUtil.contains(text, "@Table") && !StringUtil.contains(text, "@Entity")) {
+                return Collections.emptyMap();
+            }
+            PsiFile psiFile = fileContent.getPsiFile();
+            if (!(psiFile instanceof PsiJavaFile)) {
+                return Collections.emptyMap();
+            }
+            for (PsiClass aClass : ((PsiJavaFile) psiFile).getClasses()) {
+                if (aClass.getName() != null) {
+                    if (!EntityTableUtils.isEntity(aClass)) {
+                        break;
+                    }
+                    Table table = EntityTableUtils.getTable(aClass, false);
+                    return Collections.singletonMap(table.getTableName(), table);
+                }
+            }
+            return Collections.emptyMap();
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Table> getValueExternalizer() {
+        return TableExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    private static class TableExternalizer implements DataExternalizer<Table> {
+        private static final TableExternalizer INSTANCE = new TableExternalizer();
+
+        @Override
+        public void save(@NotNull DataOutput out, Table table) throws IOException {
+            writeString(out, table.getTableName());
+            writeString(out, table.getRemarks());
+            out.writeInt(table.getColumns().size());
+            for (Column column : table.getColumns()) {
+                writeString(out, column.getColumnName());
+                writeString(out, column.getRemarks());
+                out.writeInt(column.getType());
+                out.writeBoolean(Boolean.TRUE.equals(column.getPrimaryKey()));
+            }
+        }
+
+        @Override
+        public Table read(@NotNull DataInput in) throws IOException {
+            Table table = new Table();
+            table.setTableName(readString(in));
+            table.setRemarks(readString(in));
+            int size = in.readInt();
+            List<Column> columns = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Column column = new Column();
+                column.setColumnName(readString(in));
+                column.setRemarks(readString(in));
+                column.setType(in.readInt());
+                column.setPrimaryKey(in.readBoolean());
+                columns.add(column);
+            }
+            table.setColumns(columns);
+            return table;
+        }
+
+        private static void writeString(DataOutput out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                IOUtil.writeUTF(out, value);
+            }
+        }
+
+        private static String readString(DataInput in) throws IOException {
+            return in.readBoolean() ? IOUtil.readUTF(in) : null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.ilsmp.base.rpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import com.alibaba.fastjson.JSON;
+import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.HashUtils;
+import com.intellij.openapi.diagnostic.Logger;
+import lombok.Data;
+
+/**
+ * HubClient的磁盘响应缓存, 每个条目一个gzip压缩的响应体和一个元数据文件.
+ * 过期时间取自Cache-Control/Expires, 重新验证时带上ETag/Last-Modified; 总大小超过上限时按最近使用淘汰
+ */
+class HttpResponseCache {
+    private static final Logger LOG = Logger.getInstance(HttpResponseCache.class);
+    private static final long MAX_SIZE = 32L * 1024 * 1024;
+    private static final String BODY_SUFFIX = ".body.gz";
+    private static final String META_SUFFIX = ".meta.json";
+
+    private final Path root;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<String> revalidating = new HashSet<>();
+    private long size = 0;
+    private boolean loaded = false;
+
+    HttpResponseCache(Path root) {
+        this.root = root;
+    }
+
+    static String key(String method, String uri, String body) {
+        return HashUtils.sha256(method + " " + uri + "\n" + body);
+    }
+
+    synchronized Entry get(String key) {
+        load();
+        return entries.get(key);
+    }
+
+    /**
+     * 响应体, 文件已被淘汰时抛出IOException
+     */
+    InputStream openBody(Entry entry) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(getBodyFile(entry.getKey())));
+    }
+
+    Path newTempFile() throws IOException {
+        Files.createDirectories(root);
+        return Files.createTempFile(root, "body", ".tmp");
+    }
+
+    /**
+     * 保存新的响应, tmpBody为gzip压缩后的响应体, 会被移动到缓存目录
+     */
+    synchronized void put(Entry entry, Path tmpBody) {
+        load();
+        try {
+            entry.setSize(Files.size(tmpBody));
+            Files.move(tmpBody, getBodyFile(entry.getKey()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeMeta(entry);
+        } catch (IOException e) {
+            LOG.warn("响应缓存保存失败: " + entry.getUrl(), e);
+            deleteQuietly(tmpBody);
+            remove(entry.getKey());
+            return;
+        }
+        Entry old = entries.put(entry.getKey(), entry);
+        if (old != null) {
+            size -= old.getSize();
+        }
+        size += entry.getSize();
+        evict();
+    }
+
+    /**
+     * 服务端返回304, 响应体不变, 只更新过期时间和验证信息
+     */
+    synchronized void refresh(Entry entry, HttpHeaders headers) {
+        Entry refreshed = Entry.of(entry.getKey(), entry.getUrl(), headers);
+        if (refreshed == null || !entries.containsKey(entry.getKey())) {
+            remove(entry.getKey());
+            return;
+        }
+        if (refreshed.getEtag() == null) {
+            refreshed.setEtag(entry.getEtag());
+        }
+        if (refreshed.getLastModified() == null) {
+            refreshed.setLastModified(entry.getLastModified());
+        }
+        refreshed.setSize(entry.getSize());
+        try {
+            writeMeta(refreshed);
+        } catch (IOException e) {
+            LOG.warn("响应缓存保存失败: " + entry.getUrl(), e);
+        }
+        entries.put(entry.getKey(), refreshed);
+    }
+
+    synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.getSize();
+        }
+        deleteQuietly(getBodyFile(key));
+        deleteQuietly(getMetaFile(key));
+    }
+
+    /**
+     * 同一条目同时只做一次后台验证
+     */
+    synchronized boolean startRevalidate(String key) {
+        return revalidating.add(key);
+    }
+
+    synchronized void finishRevalidate(String key) {
+        revalidating.remove(key);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > MAX_SIZE && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            size -= entry.getSize();
+            deleteQuietly(getBodyFile(entry.getKey()));
+            deleteQuietly(getMetaFile(entry.getKey()));
+        }
+    }
+
+    /**
+     * 首次使用时读取目录, 按元数据文件的修改时间恢复使用顺序
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> metaFiles;
+        try (Stream<Path> paths = Files.list(root)) {
+            metaFiles = paths.filter(path -> path.getFileName().toString().endsWith(META_SUFFIX))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            LOG.warn("响应缓存读取失败: " + root, e);
+            return;
+        }
+        for (Path metaFile : metaFiles) {
+            try {
+                Entry entry = JSON.parseObject(new String(Files.readAllBytes(metaFile), CrudUtils.UTF_8), Entry.class);
+                if (entry == null || entry.getKey() == null || !Files.exists(getBodyFile(entry.getKey()))) {
+                    deleteQuietly(metaFile);
+                    continue;
+                }
+                entries.put(entry.getKey(), entry);
+                size += entry.getSize();
+            } catch (Exception e) {
+                deleteQuietly(metaFile);
+            }
+        }
+        evict();
+        //清理中途失败留下的临时文件
+        try (Stream<Path> paths = Files.list(root)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(".tmp")).forEach(HttpResponseCache::deleteQuietly);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeMeta(Entry entry) throws IOException {
+        Path file = getMetaFile(entry.getKey());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, JSON.toJSONString(entry).getBytes(CrudUtils.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path getBodyFile(String key) {
+        return root.resolve(key + BODY_SUFFIX);
+    }
+
+    private Path getMetaFile(String key) {
+        return root.resolve(key + META_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Data
+    public static class Entry {
+        private String key;
+        private String url;
+        private String etag;
+        private String lastModified;
+        /**
+         * 过期时间戳, 之前直接使用缓存, 之后先返回缓存再后台验证
+         */
+        private long expiresAt;
+        /**
+         * Cache-Control为no-cache或must-revalidate, 过期后要先验证才能使用
+         */
+        private boolean mustRevalidate;
+        private long size;
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        /**
+         * 按响应头生成条目, no-store时返回null
+         */
+        static Entry of(String key, String url, HttpHeaders headers) {
+            Long maxAge = null;
+            boolean noCache = false;
+            boolean mustRevalidate = false;
+            for (String value : headers.allValues("Cache-Control")) {
+                for (String directive : value.split(",")) {
+                    String name = directive.trim().toLowerCase();
+                    if ("no-store".equals(name)) {
+                        return null;
+                    } else if ("no-cache".equals(name)) {
+                        noCache = true;
+                    } else if ("must-revalidate".equals(name)) {
+                        mustRevalidate = true;
+                    } else if (name.startsWith("max-age=")) {
+                        try {
+                            maxAge = Long.parseLong(name.substring(8).trim());
+                        } catch (NumberFormatException ignored) {
+                        }
+                    }
+                }
+            }
+            long now = System.currentTimeMillis();
+            Entry entry = new Entry();
+            entry.setKey(key);
+            entry.setUrl(url);
+            entry.setEtag(headers.firstValue("ETag").orElse(null));
+            entry.setLastModified(headers.firstValue("Last-Modified").orElse(null));
+            entry.setMustRevalidate(noCache || mustRevalidate);
+            if (noCache) {
+                entry.setExpiresAt(0);
+            } else if (maxAge != null) {
+                entry.setExpiresAt(now + maxAge * 1000);
+            } else {
+                entry.setExpiresAt(headers.firstValue("Expires").map(HttpResponseCache::parseDate).orElse(now));
+            }
+            return entry;
+        }
+    }
+
+    private static long parseDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -1,27 +1,61 @@
 package com.ilsmp.base.rpc;
 
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
-import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONReader;
 import com.github.mars05.crud.hub.common.exception.BizException;
 import com.ilsmp.base.rpc.request.Request;
 import com.ilsmp.base.rpc.response.Response;
+import com.ilsmp.base.service.BackgroundExecutorService;
 import com.ilsmp.base.util.CrudUtils;
+import com.intellij.openapi.application.PathManager;
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * crud-hub接口客户端, 所有实例共用一个HttpClient, 支持HTTP/2并复用连接.
+ * 响应体不先读成字符串, 直接从输入流解析; 市场列表和模板详情使用磁盘缓存
+ */
 public class HubClient {
     private static final String METHOD_GET = "GET";
     private static final String METHOD_POST = "POST";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/55.0.2883.87 Safari/537.36";
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private static final HttpResponseCache CACHE = new HttpResponseCache(
+            Paths.get(PathManager.getSystemPath(), "base-plugin", "http-cache"));
+
     private final String url;
 
     public HubClient() {
@@ -38,94 +72,299 @@ public class HubClient {
         }
     }
 
+    /**
+     * 同步调用, 不要在EDT中使用
+     */
     public <T extends Response> T execute(Request<T> request) {
+        try {
+            return executeAsync(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BizException("请求已取消", e);
+        } catch (ExecutionException e) {
+            throw toBizException(e.getCause());
+        }
+    }
+
+    /**
+     * 异步调用, 取消返回的future时丢弃结果并关闭响应流; 失败时以BizException结束.
+     * JBR 11上HttpClient在收到响应头之前无法中止(JDK-8245462), 取消后连接最长占用到REQUEST_TIMEOUT.
+     * 可缓存的请求在IO线程中查找磁盘缓存, 未过期时直接读缓存, 过期后先返回缓存再在后台带ETag/Last-Modified重新验证
+     */
+    public <T extends Response> CompletableFuture<T> executeAsync(Request<T> request) {
         check();
-        HttpURLConnection conn = null;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        HttpRequest httpRequest;
         try {
-            StringBuilder urlBuilder = new StringBuilder();
-            urlBuilder.append(StringUtils.removeEnd(url, "/"));
-            urlBuilder.append(request.getPath());
-            if (METHOD_GET.equalsIgnoreCase(request.getMethod())) {
-                List<String> paramList = new ArrayList<>();
-                for (Map.Entry<String, String> entry : request.getQuery().entrySet()) {
-                    paramList.add(entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), CrudUtils.UTF_8.toString()));
-                }
-                if (!paramList.isEmpty()) {
-                    urlBuilder.append("?").append(String.join("&", paramList));
-                }
+            httpRequest = newHttpRequest(request, null);
+        } catch (Exception e) {
+            result.completeExceptionally(toBizException(e));
+            return result;
+        }
+        if (!request.isCacheable()) {
+            send(httpRequest, request.getResponseClass(), null, null, result);
+            return result;
+        }
+        //首次查找缓存会读取缓存目录, 不能在调用线程(可能是EDT)中进行
+        BackgroundExecutorService.getInstance().io().execute(() -> {
+            try {
+                executeCacheable(request, httpRequest, result);
+            } catch (Exception e) {
+                result.completeExceptionally(toBizException(e));
             }
-            URL url = new URL(urlBuilder.toString());
-            conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod(request.getMethod());
-            setHeader(conn);
-            if (METHOD_POST.equalsIgnoreCase(request.getMethod())) {
-                setRequestBody(conn, request.getBody());
+        });
+        return result;
+    }
+
+    private <T extends Response> void executeCacheable(Request<T> request, HttpRequest httpRequest, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        String cacheKey = HttpResponseCache.key(httpRequest.method(), httpRequest.uri().toString(), request.getBody());
+        HttpResponseCache.Entry entry = CACHE.get(cacheKey);
+        if (entry == null) {
+            send(httpRequest, request.getResponseClass(), cacheKey, null, result);
+        } else if (request.isForceRevalidate() || (!entry.isFresh() && entry.isMustRevalidate())) {
+            send(newHttpRequest(request, entry), request.getResponseClass(), cacheKey, entry, result);
+        } else {
+            readCache(request, httpRequest, cacheKey, entry, result);
+            if (!entry.isFresh()) {
+                revalidate(request, cacheKey, entry);
             }
-            String responseBody = getResponseBody(conn);
-            Class<? extends Response> responseClass = request.getResponseClass();
-            return parseBody(responseBody, responseClass);
+        }
+    }
+
+    private <T extends Response> void readCache(Request<T> request, HttpRequest httpRequest, String cacheKey,
+                                                HttpResponseCache.Entry entry, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        T cached = parseCache(entry, request.getResponseClass());
+        if (cached != null) {
+            result.complete(cached);
+        } else {
+            send(httpRequest, request.getResponseClass(), cacheKey, null, result);
+        }
+    }
+
+    /**
+     * 后台条件请求, 304只刷新过期时间, 200时更新缓存, 结果不返回给调用方
+     */
+    private <T extends Response> void revalidate(Request<T> request, String cacheKey, HttpResponseCache.Entry entry) {
+        if (!CACHE.startRevalidate(cacheKey)) {
+            return;
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((response, error) -> CACHE.finishRevalidate(cacheKey));
+        try {
+            send(newHttpRequest(request, entry), request.getResponseClass(), cacheKey, entry, future);
         } catch (Exception e) {
-            throw new BizException(e.getMessage(), e);
-        } finally {
-            if (null != conn) {
-                conn.disconnect();
+            future.completeExceptionally(e);
+        }
+    }
+
+    private <T extends Response> void send(HttpRequest httpRequest, Class<T> clazz, String cacheKey,
+                                           HttpResponseCache.Entry cached, CompletableFuture<T> result) {
+        CompletableFuture<HttpResponse<InputStream>> sent = HTTP_CLIENT.sendAsync(httpRequest,
+                HttpResponse.BodyHandlers.ofInputStream());
+        sent.whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(toBizException(error));
+                return;
+            }
+            //解析过程中取消时关闭响应流, 中断读取并释放连接; 已取消时立即关闭
+            result.whenComplete((value, e) -> {
+                if (e instanceof CancellationException) {
+                    closeQuietly(response.body());
+                }
+            });
+            if (result.isDone()) {
+                closeQuietly(response.body());
+                return;
+            }
+            try {
+                result.complete(handleResponse(response, clazz, cacheKey, cached));
+            } catch (Exception e) {
+                result.completeExceptionally(toBizException(e));
             }
+        });
+        result.whenComplete((response, error) -> {
+            if (error instanceof CancellationException) {
+                //JDK 16之前只有收到响应头后才会生效
+                sent.cancel(true);
+            }
+        });
+    }
+
+    private <T extends Response> T handleResponse(HttpResponse<InputStream> response, Class<T> clazz, String cacheKey,
+                                                  HttpResponseCache.Entry cached) throws IOException {
+        if (response.statusCode() == HTTP_NOT_MODIFIED && cached != null) {
+            closeQuietly(response.body());
+            CACHE.refresh(cached, response.headers());
+            T value = parseCache(cached, clazz);
+            if (value == null) {
+                throw new BizException("缓存读取失败, 请重试");
+            }
+            return value;
         }
+        return parseBody(response, clazz, cacheKey);
     }
 
-    private <T extends Response> T parseBody(String body, Class<? extends Response> clazz) {
-        try {
-            Response response = JSON.parseObject(body, clazz);
-            response.setBody(body);
-            return (T) response;
+    /**
+     * 缓存文件已被淘汰或损坏时删除条目并返回null
+     */
+    private <T extends Response> T parseCache(HttpResponseCache.Entry entry, Class<T> clazz) {
+        try (JSONReader reader = new JSONReader(new InputStreamReader(CACHE.openBody(entry), CrudUtils.UTF_8))) {
+            return reader.readObject(clazz);
         } catch (Exception e) {
-            throw new IllegalStateException("服务端响应数据格式错误");
+            CACHE.remove(entry.getKey());
+            return null;
         }
     }
 
-    private void setRequestBody(HttpURLConnection conn, String reqParam) throws IOException {
-        OutputStream out = conn.getOutputStream();
-        out.write(reqParam.getBytes());
-        out.flush();
-        out.close();
+    /**
+     * cached不为null时带上条件请求头
+     */
+    private HttpRequest newHttpRequest(Request<?> request, HttpResponseCache.Entry cached) {
+        StringBuilder urlBuilder = new StringBuilder();
+        urlBuilder.append(StringUtils.removeEnd(url, "/"));
+        urlBuilder.append(request.getPath());
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Encoding", "gzip");
+        if (cached != null && cached.getEtag() != null) {
+            builder.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            builder.header("If-Modified-Since", cached.getLastModified());
+        }
+        if (METHOD_GET.equalsIgnoreCase(request.getMethod())) {
+            List<String> paramList = new ArrayList<>();
+            for (Map.Entry<String, String> entry : request.getQuery().entrySet()) {
+                paramList.add(entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), CrudUtils.UTF_8));
+            }
+            if (!paramList.isEmpty()) {
+                urlBuilder.append("?").append(String.join("&", paramList));
+            }
+            builder.GET();
+        } else if (METHOD_POST.equalsIgnoreCase(request.getMethod())) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(request.getBody(), CrudUtils.UTF_8));
+        } else {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.uri(URI.create(urlBuilder.toString())).build();
     }
 
-    private String getResponseBody(HttpURLConnection conn) throws IOException {
-        try {
-            InputStream input = conn.getInputStream();
-            String ce = conn.getHeaderField("Content-Encoding");
-            if ("gzip".equalsIgnoreCase(ce)) {
+    /**
+     * cacheKey不为null时边解析边把响应体写入缓存临时文件, 成功响应才放入缓存
+     */
+    private <T extends Response> T parseBody(HttpResponse<InputStream> response, Class<T> clazz, String cacheKey) throws IOException {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() / 100 != 2) {
+                throw new BizException("服务端响应错误: " + response.statusCode());
+            }
+            InputStream input = body;
+            if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(null))) {
                 input = new GZIPInputStream(input);
             }
-            return copyToString(input);
-        } finally {
-            conn.getInputStream().close();
+            HttpResponseCache.Entry entry = null;
+            Path tmpBody = null;
+            OutputStream copy = null;
+            if (cacheKey != null && response.statusCode() == HTTP_OK) {
+                entry = HttpResponseCache.Entry.of(cacheKey, response.uri().toString(), response.headers());
+            }
+            if (entry != null) {
+                tmpBody = CACHE.newTempFile();
+                copy = new GZIPOutputStream(Files.newOutputStream(tmpBody));
+                input = new TeeInputStream(input, copy);
+            }
+            try {
+                T parsed;
+                try (JSONReader reader = new JSONReader(new InputStreamReader(input, CrudUtils.UTF_8))) {
+                    parsed = reader.readObject(clazz);
+                    if (parsed == null) {
+                        throw new IllegalStateException();
+                    }
+                    if (copy != null) {
+                        //读完剩余内容, 保证缓存的响应体完整
+                        input.transferTo(OutputStream.nullOutputStream());
+                    }
+                } catch (BizException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw new BizException("服务端响应数据格式错误", e);
+                }
+                if (copy != null) {
+                    copy.close();
+                    copy = null;
+                    if (parsed.isSuccess()) {
+                        CACHE.put(entry, tmpBody);
+                        tmpBody = null;
+                    }
+                }
+                return parsed;
+            } finally {
+                if (copy != null) {
+                    closeQuietly(copy);
+                }
+                if (tmpBody != null) {
+                    Files.deleteIfExists(tmpBody);
+                }
+            }
         }
     }
 
-    private String copyToString(InputStream in) throws IOException {
-        if (in == null) {
-            return "";
+    private static BizException toBizException(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof BizException) {
+            return (BizException) e;
         }
-        StringBuilder out = new StringBuilder();
-        InputStreamReader reader = new InputStreamReader(in, CrudUtils.UTF_8);
-        char[] buffer = new char[4096];
-        int bytesRead;
-        while ((bytesRead = reader.read(buffer)) != -1) {
-            out.append(buffer, 0, bytesRead);
+        return new BizException(String.valueOf(e.getMessage()), e);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
         }
-        return out.toString();
     }
 
-    private void setHeader(HttpURLConnection conn) {
-        conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/55.0.2883.87 Safari/537.36");
-        conn.setRequestProperty("Accept-Encoding", "gzip, deflate");
-//        /*conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");*/
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setUseCaches(false);
-        conn.setConnectTimeout(30000);
-        conn.setReadTimeout(30000);
-        conn.setDoOutput(true);
-        conn.setDoInput(true);
+    /**
+     * 读取的同时复制一份到out
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final OutputStream out;
+
+        TeeInputStream(InputStream in, OutputStream out) {
+            super(in);
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                out.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                out.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return Math.max(read(new byte[(int) Math.min(n, 8192)]), 0);
+        }
     }
 }
@@ -3,6 +3,7 @@ package com.ilsmp.base.rpc.request;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.alibaba.fastjson.annotation.JSONField;
 import com.ilsmp.base.rpc.response.ProjectTemplateResponse;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -13,6 +14,11 @@ import lombok.experimental.Accessors;
 @Accessors(chain = true)
 public class MarketplaceGetRequest extends Request<ProjectTemplateResponse> {
     private Long id;
+    /**
+     * 导入时使用, 保证保存的是服务端最新的模板
+     */
+    @JSONField(serialize = false)
+    private boolean forceRevalidate;
 
     @Override
     public String getMethod() {
@@ -26,6 +32,11 @@ public class MarketplaceGetRequest extends Request<ProjectTemplateResponse> {
         return map;
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public String getPath() {
         return "/api/crud-admin/marketplace/get";
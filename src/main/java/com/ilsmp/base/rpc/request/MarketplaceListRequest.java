@@ -1,5 +1,6 @@
 package com.ilsmp.base.rpc.request;
 
+import com.alibaba.fastjson.JSON;
 import com.ilsmp.base.rpc.response.MarketplaceListResponse;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -20,6 +21,19 @@ public class MarketplaceListRequest extends Request<MarketplaceListResponse> {
     private Integer pageNumber = 1;
     private Integer pageSize = 20;
 
+    /**
+     * 查询条件和分页参数作为JSON请求体发送
+     */
+    @Override
+    public String getBody() {
+        return JSON.toJSONString(this);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public String getPath() {
         return "/api/crud-admin/marketplace/list";
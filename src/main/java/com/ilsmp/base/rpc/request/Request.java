@@ -22,6 +22,22 @@ public abstract class Request<T extends Response> {
         return new HashMap<>();
     }
 
+    /**
+     * 是否使用HubClient的磁盘响应缓存, 带令牌等私有数据的请求不要缓存
+     */
+    @JSONField(serialize = false)
+    public boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * 有缓存时也先向服务端验证再返回, 用于结果会被保存的请求
+     */
+    @JSONField(serialize = false)
+    public boolean isForceRevalidate() {
+        return false;
+    }
+
     @JSONField(serialize = false)
     public abstract String getPath();
 
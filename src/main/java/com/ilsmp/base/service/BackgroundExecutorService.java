@@ -0,0 +1,210 @@
+package com.ilsmp.base.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ilsmp.base.dto.ExecutorMetricsDTO;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+/**
+ * 插件的后台线程池: IO池用于JDBC、HTTP和磁盘读写, CPU池用于模板渲染和DDL解析.
+ * 队列有界, 队列满时由提交线程自己执行, EDT提交时转给IDE的共享线程池; 任务继承提交时的ModalityState,
+ * 未捕获的异常写入IDE日志. 运行期间定时输出debug级别的指标, 队列积压或满时输出警告. 插件卸载时关闭线程池
+ */
+public class BackgroundExecutorService implements Disposable {
+    private static final Logger LOG = Logger.getInstance(BackgroundExecutorService.class);
+    private static final int IO_THREADS = DataSourcePoolService.MAX_ACTIVE;
+    private static final int IO_QUEUE_SIZE = 256;
+    private static final int CPU_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int CPU_QUEUE_SIZE = CPU_THREADS * 4;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    /**
+     * 排队超过这个时间的任务记一条警告
+     */
+    private static final long SLOW_WAIT_MILLIS = 5000;
+    private static final long METRICS_INTERVAL_SECONDS = 60;
+    /**
+     * 同一线程池的饱和警告最多每分钟一条
+     */
+    private static final long SATURATION_WARN_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final MonitoredExecutor ioExecutor = new MonitoredExecutor("base-io", IO_THREADS, IO_QUEUE_SIZE);
+    private final MonitoredExecutor cpuExecutor = new MonitoredExecutor("base-cpu", CPU_THREADS, CPU_QUEUE_SIZE);
+    private final ScheduledFuture<?> metricsFuture = AppExecutorUtil.getAppScheduledExecutorService()
+            .scheduleWithFixedDelay(this::logMetrics, METRICS_INTERVAL_SECONDS, METRICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+    public static BackgroundExecutorService getInstance() {
+        return ServiceManager.getService(BackgroundExecutorService.class);
+    }
+
+    /**
+     * JDBC、HTTP和磁盘读写
+     */
+    public ExecutorService io() {
+        return ioExecutor;
+    }
+
+    /**
+     * 模板渲染、DDL解析等计算任务, 线程数不超过CPU核数
+     */
+    public ExecutorService cpu() {
+        return cpuExecutor;
+    }
+
+    /**
+     * 指标写入debug日志, 排队数超过队列容量一半时写警告
+     */
+    private void logMetrics() {
+        for (MonitoredExecutor executor : Arrays.asList(ioExecutor, cpuExecutor)) {
+            if (executor.getQueue().size() * 2 > executor.queueCapacity) {
+                executor.warnSaturation("任务积压");
+            } else if (LOG.isDebugEnabled()) {
+                LOG.debug(executor.getMetrics().toString());
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        metricsFuture.cancel(false);
+        for (MonitoredExecutor executor : Arrays.asList(ioExecutor, cpuExecutor)) {
+            executor.shutdownNow();
+        }
+        for (MonitoredExecutor executor : Arrays.asList(ioExecutor, cpuExecutor)) {
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    LOG.warn("线程池未能及时关闭: " + executor.name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            LOG.info(executor.getMetrics().toString());
+        }
+    }
+
+    private static class MonitoredExecutor extends ThreadPoolExecutor {
+        private final String name;
+        private final int queueCapacity;
+        private final LongAdder finished = new LongAdder();
+        private final LongAdder callerRuns = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAdder totalRunNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong lastSaturationWarn = new AtomicLong();
+
+        private MonitoredExecutor(String name, int threads, int queueCapacity) {
+            super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+            this.name = name;
+            this.queueCapacity = queueCapacity;
+            allowCoreThreadTimeOut(true);
+            setRejectedExecutionHandler(new BackPressurePolicy());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(command instanceof TimedTask ? command : new TimedTask(command, ModalityState.defaultModalityState()));
+        }
+
+        private ExecutorMetricsDTO getMetrics() {
+            long count = Math.max(1, finished.sum());
+            ExecutorMetricsDTO metricsDTO = new ExecutorMetricsDTO();
+            metricsDTO.setName(name);
+            metricsDTO.setPoolSize(getPoolSize());
+            metricsDTO.setActiveCount(getActiveCount());
+            metricsDTO.setQueueSize(getQueue().size());
+            metricsDTO.setQueueCapacity(queueCapacity);
+            metricsDTO.setCompletedCount(finished.sum());
+            metricsDTO.setCallerRunsCount(callerRuns.sum());
+            metricsDTO.setAvgWaitMillis(totalWaitNanos.sum() / 1e6 / count);
+            metricsDTO.setMaxWaitMillis(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            metricsDTO.setAvgRunMillis(totalRunNanos.sum() / 1e6 / count);
+            return metricsDTO;
+        }
+
+        private void warnSaturation(String reason) {
+            long now = System.currentTimeMillis();
+            long last = lastSaturationWarn.get();
+            if (now - last >= SATURATION_WARN_INTERVAL && lastSaturationWarn.compareAndSet(last, now)) {
+                LOG.warn(name + reason + ": " + getMetrics());
+            }
+        }
+
+        /**
+         * 队列满时提交线程自己执行, 形成背压; EDT不能执行阻塞任务, 转给IDE的共享线程池
+         */
+        private class BackPressurePolicy implements RejectedExecutionHandler {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException(name + "已关闭");
+                }
+                callerRuns.increment();
+                warnSaturation("队列已满, 由提交线程执行");
+                if (ApplicationManager.getApplication().isDispatchThread()) {
+                    AppExecutorUtil.getAppExecutorService().execute(r);
+                } else {
+                    r.run();
+                }
+            }
+        }
+
+        /**
+         * 记录排队和执行耗时, 在提交时的ModalityState下执行
+         */
+        private class TimedTask implements Runnable {
+            private final Runnable task;
+            private final ModalityState modalityState;
+            private final long submitTime = System.nanoTime();
+
+            private TimedTask(Runnable task, ModalityState modalityState) {
+                this.task = task;
+                this.modalityState = modalityState;
+            }
+
+            @Override
+            public void run() {
+                long startTime = System.nanoTime();
+                long waitNanos = startTime - submitTime;
+                totalWaitNanos.add(waitNanos);
+                maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+                if (TimeUnit.NANOSECONDS.toMillis(waitNanos) > SLOW_WAIT_MILLIS) {
+                    LOG.warn(name + "任务排队" + TimeUnit.NANOSECONDS.toMillis(waitNanos) + "ms, 队列长度: " + getQueue().size());
+                }
+                try {
+                    if (ProgressManager.getInstance().getProgressIndicator() != null) {
+                        //提交线程自己执行时沿用它的进度
+                        task.run();
+                    } else {
+                        ProgressManager.getInstance().runProcess(task, new EmptyProgressIndicator(modalityState));
+                    }
+                } catch (ProcessCanceledException | CancellationException ignored) {
+                } catch (Throwable e) {
+                    LOG.error(name + "后台任务执行失败", e);
+                } finally {
+                    totalRunNanos.add(System.nanoTime() - startTime);
+                    finished.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.ilsmp.base.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+import com.github.mars05.crud.hub.common.dto.CodeGenerateReqDTO;
+import com.github.mars05.crud.hub.common.dto.FileRespDTO;
+import com.github.mars05.crud.hub.common.dto.FileTemplateDTO;
+import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
+import com.github.mars05.crud.hub.common.enums.FileTemplateTypeEnum;
+import com.github.mars05.crud.hub.common.enums.ProjectTypeEnum;
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.github.mars05.crud.hub.common.model.TemplateParam;
+import com.ilsmp.base.dto.GenerateResultDTO;
+import com.ilsmp.base.setting.GenerateManifest;
+import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.HashUtils;
+import com.ilsmp.base.util.TemplateCache;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.RefreshQueue;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 代码生成引擎, 按(表 x 文件模板)拆分任务并行渲染, 结果顺序与ProjectService.generateCode一致
+ */
+public class CodeGenerateService {
+    private static final int VFS_WRITE_BATCH = 50;
+
+    public List<FileRespDTO> generateCode(CodeGenerateReqDTO reqDTO, ProgressIndicator indicator) {
+        return generateCode(reqDTO, indicator, BackgroundExecutorService.getInstance().cpu());
+    }
+
+    /**
+     * @param executor 渲染任务使用的线程池, 插件中为BackgroundExecutorService的CPU池, 基准测试中传入自己的线程池
+     */
+    public List<FileRespDTO> generateCode(CodeGenerateReqDTO reqDTO, ProgressIndicator indicator, ExecutorService executor) {
+        List<Table> tables = reqDTO.getTables();
+        List<String> nameList = reqDTO.getNameList();
+        if (nameList == null || nameList.isEmpty() || tables == null || tables.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ProjectTemplateDTO projectTemplate = reqDTO.getProjectTemplate();
+        List<FileTemplateDTO> fileTemplates = projectTemplate.getFileTemplateList().stream()
+                .filter(ft -> FileTemplateTypeEnum.CODE.getCode() == ft.getType() && nameList.contains(ft.getName()))
+                .collect(Collectors.toList());
+        if (fileTemplates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int tableSize = tables.size();
+        int templateSize = fileTemplates.size();
+        //结果按模板优先排列, 任务按表优先提交, 保证进度按表推进
+        FileRespDTO[] results = new FileRespDTO[templateSize * tableSize];
+        AtomicIntegerArray remaining = new AtomicIntegerArray(tableSize);
+        AtomicInteger finished = new AtomicInteger();
+        for (int i = 0; i < tableSize; i++) {
+            remaining.set(i, templateSize);
+        }
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+
+        List<Future<?>> futures = new ArrayList<>(results.length);
+        try {
+            for (int t = 0; t < tableSize; t++) {
+                Table table = tables.get(t);
+                int tableIndex = t;
+                for (int f = 0; f < templateSize; f++) {
+                    FileTemplateDTO fileTemplate = fileTemplates.get(f);
+                    int index = f * tableSize + t;
+                    futures.add(executor.submit(() -> {
+                        indicator.checkCanceled();
+                        results[index] = render(fileTemplate, newTemplateParam(reqDTO, table));
+                        if (remaining.decrementAndGet(tableIndex) == 0) {
+                            indicator.setText2(table.getTableName());
+                            indicator.setFraction((double) finished.incrementAndGet() / tableSize);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                await(future, indicator);
+            }
+        } finally {
+            //取消或失败时丢弃还在排队的任务, 已完成的不受影响
+            futures.forEach(future -> future.cancel(true));
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * 增量写入: 只写入新增或渲染内容变化的文件, 已存在且被手动修改过的文件保持不动.
+     * VFS中已有的文件直接通过VFS写入, 新文件写盘后异步刷新所在目录, 刷新完成后格式化生成的Java文件; 写入成功后才更新生成清单, 已删除文件的记录在写入前清理
+     */
+    public GenerateResultDTO processFileToDisk(Project project, String projectPath, List<FileRespDTO> files) {
+        GenerateManifest manifest = GenerateManifest.getInstance(project);
+        manifest.removeMissingFiles();
+        GenerateResultDTO resultDTO = new GenerateResultDTO();
+        Map<VirtualFile, byte[]> vfsWrites = new LinkedHashMap<>();
+        Map<VirtualFile, String> vfsKeys = new HashMap<>();
+        List<File> newFiles = new ArrayList<>();
+        for (FileRespDTO fileRespDTO : files) {
+            File file = new File(projectPath + "/" + StringUtils.removeStart(fileRespDTO.getPath(), "/"));
+            String key = FileUtil.toSystemIndependentName(file.getAbsolutePath());
+            byte[] content = fileRespDTO.getContent().getBytes(CrudUtils.UTF_8);
+            String renderedHash = HashUtils.sha256(content);
+            try {
+                if (file.exists()) {
+                    if (renderedHash.equals(manifest.getRenderedHash(key))) {
+                        resultDTO.getUnchangedList().add(fileRespDTO);
+                        continue;
+                    }
+                    String diskHash = HashUtils.sha256(Files.readAllBytes(file.toPath()));
+                    if (diskHash.equals(renderedHash)) {
+                        manifest.put(key, renderedHash, diskHash);
+                        resultDTO.getUnchangedList().add(fileRespDTO);
+                        continue;
+                    }
+                    VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByIoFile(file);
+                    if (!diskHash.equals(manifest.getDiskHash(key))
+                            || (virtualFile != null && FileDocumentManager.getInstance().isFileModified(virtualFile))) {
+                        resultDTO.getSkippedList().add(fileRespDTO);
+                        continue;
+                    }
+                    if (virtualFile != null) {
+                        //写入VFS成功后再记录清单
+                        vfsWrites.put(virtualFile, content);
+                        vfsKeys.put(virtualFile, key);
+                    } else {
+                        Files.write(file.toPath(), content);
+                        manifest.put(key, renderedHash, renderedHash);
+                        newFiles.add(file);
+                    }
+                } else {
+                    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+                        throw new BizException("目录创建失败:" + fileRespDTO.getPath());
+                    }
+                    Files.write(file.toPath(), content);
+                    manifest.put(key, renderedHash, renderedHash);
+                    newFiles.add(file);
+                }
+            } catch (IOException e) {
+                throw new BizException(e.getMessage(), e);
+            }
+            resultDTO.getWrittenList().add(fileRespDTO);
+        }
+        writeThroughVfs(project, manifest, vfsWrites, vfsKeys);
+        refresh(project, newFiles);
+        return resultDTO;
+    }
+
+    private void writeThroughVfs(Project project, GenerateManifest manifest, Map<VirtualFile, byte[]> vfsWrites,
+                                 Map<VirtualFile, String> vfsKeys) {
+        List<Map.Entry<VirtualFile, byte[]>> entries = new ArrayList<>(vfsWrites.entrySet());
+        for (int i = 0; i < entries.size(); i += VFS_WRITE_BATCH) {
+            List<Map.Entry<VirtualFile, byte[]>> batch = entries.subList(i, Math.min(i + VFS_WRITE_BATCH, entries.size()));
+            WriteAction.runAndWait(() -> {
+                for (Map.Entry<VirtualFile, byte[]> entry : batch) {
+                    try {
+                        entry.getKey().setBinaryContent(entry.getValue());
+                    } catch (IOException e) {
+                        throw new BizException(e.getMessage(), e);
+                    }
+                }
+            });
+            for (Map.Entry<VirtualFile, byte[]> entry : batch) {
+                String hash = HashUtils.sha256(entry.getValue());
+                manifest.put(vfsKeys.get(entry.getKey()), hash, hash);
+            }
+        }
+        for (VirtualFile virtualFile : vfsWrites.keySet()) {
+            if (isJavaFile(virtualFile.getName())) {
+                CrudUtils.addWaitOptimizeFile(project, virtualFile);
+            }
+        }
+    }
+
+    /**
+     * 新文件所在的目录(通常只有几个包目录)做一次异步非递归刷新, 刷新完成后把新的Java文件加入格式化队列并统一调度,
+     * 通过VFS写入的文件也在这里一起格式化
+     */
+    private void refresh(Project project, List<File> newFiles) {
+        LocalFileSystem fileSystem = LocalFileSystem.getInstance();
+        Set<File> parents = new LinkedHashSet<>();
+        for (File file : newFiles) {
+            parents.add(file.getParentFile());
+        }
+        List<VirtualFile> dirs = new ArrayList<>(parents.size());
+        for (File parent : parents) {
+            VirtualFile dir = fileSystem.refreshAndFindFileByIoFile(parent);
+            if (dir != null) {
+                dirs.add(dir);
+            }
+        }
+        if (dirs.isEmpty()) {
+            CrudUtils.doOptimize(project);
+            return;
+        }
+        RefreshQueue.getInstance().refresh(true, false, () -> {
+            if (project.isDisposed()) {
+                return;
+            }
+            for (File file : newFiles) {
+                VirtualFile virtualFile = fileSystem.findFileByIoFile(file);
+                if (virtualFile != null && isJavaFile(file.getName())) {
+                    CrudUtils.addWaitOptimizeFile(project, virtualFile);
+                }
+            }
+            CrudUtils.doOptimize(project);
+        }, dirs);
+    }
+
+    private boolean isJavaFile(String name) {
+        return name.endsWith(".java");
+    }
+
+    private FileRespDTO render(FileTemplateDTO fileTemplate, TemplateParam param) {
+        FileRespDTO fileRespDTO = new FileRespDTO();
+        try {
+            fileRespDTO.setPath(TemplateCache.processTemplate(fileTemplate.getPath(), param));
+        } catch (Exception e) {
+            throw new BizException("文件路径解析失败: " + fileTemplate.getPath());
+        }
+        fileRespDTO.setContent(TemplateCache.processTemplateOfNoError(fileTemplate.getContent(), param));
+        return fileRespDTO;
+    }
+
+    private TemplateParam newTemplateParam(CodeGenerateReqDTO reqDTO, Table table) {
+        TemplateParam param = new TemplateParam();
+        Integer projectType = reqDTO.getProjectTemplate().getProjectType();
+        if (Arrays.asList(ProjectTypeEnum.JAVA.getCode(), ProjectTypeEnum.MAVEN.getCode()).contains(projectType)) {
+            param.setBasePackage(reqDTO.getBasePackage());
+            param.setBasePackageDir(StringUtils.replace(reqDTO.getBasePackage(), ".", "/"));
+        }
+        param.setTable(table);
+        return param;
+    }
+
+    private void await(Future<?> future, ProgressIndicator indicator) {
+        while (true) {
+            try {
+                future.get(100, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                indicator.checkCanceled();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new BizException("代码生成失败", cause);
+            }
+        }
+    }
+
+}
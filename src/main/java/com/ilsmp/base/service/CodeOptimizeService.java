@@ -0,0 +1,141 @@
+package com.ilsmp.base.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.ilsmp.base.setting.GenerateManifest;
+import com.ilsmp.base.util.HashUtils;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.codeStyle.JavaCodeStyleManager;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 生成代码的格式化调度, 每个项目一个队列, 后台任务中分批进入写操作, 批次之间让出EDT
+ */
+public class CodeOptimizeService {
+    private static final Logger LOG = Logger.getInstance(CodeOptimizeService.class);
+    private static final int BATCH_SIZE = 10;
+
+    private final Project project;
+    private final Queue<VirtualFile> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public CodeOptimizeService(Project project) {
+        this.project = project;
+    }
+
+    public static CodeOptimizeService getInstance(Project project) {
+        return ServiceManager.getService(project, CodeOptimizeService.class);
+    }
+
+    public void add(VirtualFile virtualFile) {
+        queue.offer(virtualFile);
+    }
+
+    public void schedule() {
+        if (queue.isEmpty() || project.isDisposed() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        new Task.Backgroundable(project, "优化生成的代码...", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                int done = 0;
+                List<VirtualFile> batch;
+                while (!(batch = poll()).isEmpty()) {
+                    indicator.checkCanceled();
+                    DumbService.getInstance(project).waitForSmartMode();
+                    indicator.setText2(batch.get(0).getName());
+                    List<VirtualFile> files = batch;
+                    ApplicationManager.getApplication().invokeAndWait(() -> {
+                        if (!project.isDisposed()) {
+                            WriteCommandAction.writeCommandAction(project).withName("优化生成的代码").run(() -> optimize(files));
+                        }
+                    }, ModalityState.NON_MODAL);
+                    done += batch.size();
+                    indicator.setFraction((double) done / (done + queue.size()));
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                queue.clear();
+            }
+
+            @Override
+            public void onFinished() {
+                running.set(false);
+                //执行期间新加入的文件
+                schedule();
+            }
+        }.queue();
+    }
+
+    private List<VirtualFile> poll() {
+        List<VirtualFile> batch = new ArrayList<>(BATCH_SIZE);
+        VirtualFile virtualFile;
+        while (batch.size() < BATCH_SIZE && (virtualFile = queue.poll()) != null) {
+            if (virtualFile.isValid()) {
+                batch.add(virtualFile);
+            }
+        }
+        return batch;
+    }
+
+    private void optimize(List<VirtualFile> files) {
+        for (VirtualFile virtualFile : files) {
+            try {
+                PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+                if (psiFile instanceof PsiJavaFile) {
+                    CodeStyleManager.getInstance(project).reformat(psiFile);
+                    JavaCodeStyleManager.getInstance(project).optimizeImports(psiFile);
+                    JavaCodeStyleManager.getInstance(project).shortenClassReferences(psiFile);
+                    save(psiFile);
+                }
+            } catch (ProcessCanceledException e) {
+                throw e;
+            } catch (Exception e) {
+                LOG.warn("代码优化失败: " + virtualFile.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * 格式化后立即落盘并记录磁盘hash, 下次增量生成时据此判断文件是否被手动修改过.
+     * hash取自落盘后的文件字节(含换行符和BOM), key与CodeGenerateService.processFileToDisk一致
+     */
+    private void save(PsiFile psiFile) throws IOException {
+        Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+        if (document != null) {
+            PsiDocumentManager.getInstance(project).doPostponedOperationsAndUnblockDocument(document);
+            FileDocumentManager.getInstance().saveDocument(document);
+        }
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        String key = FileUtil.toSystemIndependentName(VfsUtilCore.virtualToIoFile(virtualFile).getAbsolutePath());
+        GenerateManifest.getInstance(project).updateDiskHash(key, HashUtils.sha256(virtualFile.contentsToByteArray()));
+    }
+
+}
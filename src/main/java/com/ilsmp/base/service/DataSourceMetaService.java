@@ -0,0 +1,234 @@
+package com.ilsmp.base.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.github.mars05.crud.hub.common.repository.DataSourceRepository;
+import com.github.mars05.crud.hub.common.util.jdbc.AbstractDatabaseQuery;
+import com.github.mars05.crud.hub.common.util.jdbc.MySqlDataBaseQuery;
+import com.github.mars05.crud.hub.common.util.jdbc.OracleDataBaseQuery;
+import com.github.mars05.crud.hub.common.util.jdbc.PostgreSqlDataBaseQuery;
+import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.jdbc.AbstractTableExtractor;
+import com.intellij.openapi.diagnostic.Logger;
+
+/**
+ * 数据源元数据(库/模式/表名)缓存, 按数据源id分组, 过期或数据源变更后重新查询.
+ * 所有查询都从DataSourcePoolService借用连接, 查询结果写入SchemaSnapshotService, 数据库不可达时使用快照
+ */
+public class DataSourceMetaService {
+    private static final Logger LOG = Logger.getInstance(DataSourceMetaService.class);
+    private static final long TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private final DataSourceRepository dataSourceRepository = CrudUtils.getBean(DataSourceRepository.class);
+    private final SchemaSnapshotService schemaSnapshotService = CrudUtils.getBean(SchemaSnapshotService.class);
+    private final Map<Long, Map<String, Entry>> cache = new ConcurrentHashMap<>();
+    private final Set<Long> staleIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public List<String> allDatabase(Long id) {
+        return get(id, "db", () -> {
+            DataSourceDTO dataSource = getDataSource(id);
+            if (DatabaseTypeEnum.PG_SQL.getCode().equals(dataSource.getDatabaseType())) {
+                dataSource.setDatabase(dataSource.getInitDb());
+            }
+            return query(dataSource, null, null, AbstractDatabaseQuery::getCatalogs);
+        });
+    }
+
+    public List<String> allSchema(Long id, String database) {
+        return get(id, "schema:" + database, () -> query(getDataSource(id, database), null, null,
+                query -> query.getSchemas(database)));
+    }
+
+    public List<String> allTableName(Long id, String database, String schema) {
+        String key = schema != null ? "table:" + database + ":" + schema : "table:" + database;
+        return get(id, key, () -> query(getDataSource(id, database), database, schema,
+                query -> query.getTables().stream()
+                        .map(cn.smallbun.screw.core.metadata.Table::getTableName)
+                        .collect(Collectors.toList())));
+    }
+
+    /**
+     * 快照中有全部所选表时直接使用快照并在后台刷新, 否则查询数据库; 数据库不可达时退回快照中已有的表.
+     * 结果顺序与tableNameList一致, 不存在的表不在结果中
+     */
+    public List<Table> getTables(Long id, String database, String schema, List<String> tableNameList) {
+        if (tableNameList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!staleIds.contains(id)) {
+            List<Table> snapshot = schemaSnapshotService.getTables(id, database, schema, tableNameList);
+            if (snapshot.size() == tableNameList.size()) {
+                refreshLater(id, database, schema, tableNameList);
+                return snapshot;
+            }
+        }
+        try {
+            return queryTables(id, database, schema, tableNameList);
+        } catch (BizException e) {
+            List<Table> snapshot = schemaSnapshotService.getTables(id, database, schema, tableNameList);
+            if (snapshot.isEmpty()) {
+                throw e;
+            }
+            LOG.warn("表结构查询失败, 使用快照: " + e.getMessage());
+            return snapshot;
+        }
+    }
+
+    public Table getTable(Long id, String database, String schema, String tableName) {
+        List<Table> tables = getTables(id, database, schema, Collections.singletonList(tableName));
+        return tables.isEmpty() ? null : tables.get(0);
+    }
+
+    /**
+     * 清除缓存, 下次获取表结构时先查数据库
+     */
+    public void invalidate(Long id) {
+        if (id != null) {
+            cache.remove(id);
+            staleIds.add(id);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private List<String> get(Long id, String key, Supplier<List<String>> loader) {
+        Map<String, Entry> entries = cache.computeIfAbsent(id, k -> new ConcurrentHashMap<>());
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expireTime > System.currentTimeMillis()) {
+            return entry.value;
+        }
+        List<String> value;
+        try {
+            value = loader.get();
+        } catch (BizException e) {
+            //查询失败不缓存, 有快照时使用快照
+            List<String> snapshot = schemaSnapshotService.getNames(id, key);
+            if (snapshot == null) {
+                throw e;
+            }
+            LOG.warn("元数据查询失败, 使用快照: " + e.getMessage());
+            return Collections.unmodifiableList(snapshot);
+        }
+        schemaSnapshotService.saveNames(id, key, value);
+        Entry newEntry = new Entry(Collections.unmodifiableList(value), System.currentTimeMillis() + TTL);
+        entries.put(key, newEntry);
+        return newEntry.value;
+    }
+
+    private List<Table> queryTables(Long id, String database, String schema, List<String> tableNameList) {
+        DataSourceDTO dataSource = getDataSource(id, database);
+        List<Table> tables;
+        try (Connection connection = DataSourcePoolService.getInstance().getConnection(dataSource)) {
+            tables = AbstractTableExtractor.of(dataSource.getDatabaseType(), connection)
+                    .getTables(database, schema, tableNameList);
+        } catch (SQLException e) {
+            throw new BizException(e.getMessage(), e);
+        }
+        schemaSnapshotService.saveTables(id, database, schema, tableNameList, tables);
+        staleIds.remove(id);
+        return tables;
+    }
+
+    /**
+     * 同一批表只保留一个刷新任务, 刷新失败时保留原快照
+     */
+    private void refreshLater(Long id, String database, String schema, List<String> tableNameList) {
+        String key = id + ":" + database + ":" + schema + ":" + tableNameList;
+        if (!refreshing.add(key)) {
+            return;
+        }
+        List<String> names = new ArrayList<>(tableNameList);
+        BackgroundExecutorService.getInstance().io().execute(() -> {
+            try {
+                queryTables(id, database, schema, names);
+            } catch (Exception e) {
+                LOG.info("表结构快照刷新失败: " + e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private DataSourceDTO getDataSource(Long id) {
+        DataSourceDTO dataSource = dataSourceRepository.selectById(id);
+        if (dataSource == null) {
+            throw new BizException("数据源不存在");
+        }
+        return dataSource;
+    }
+
+    private DataSourceDTO getDataSource(Long id, String database) {
+        DataSourceDTO dataSource = getDataSource(id);
+        dataSource.setDatabase(database);
+        return dataSource;
+    }
+
+    private <T> T query(DataSourceDTO dataSource, String catalog, String schema, QueryFunction<T> function) {
+        try (Connection connection = DataSourcePoolService.getInstance().getConnection(dataSource)) {
+            return function.apply(newQuery(dataSource, connection, catalog, schema));
+        } catch (BizException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BizException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 查询类在connection为空时会自行新建连接, 这里预先放入连接池借出的连接
+     */
+    private AbstractDatabaseQuery newQuery(DataSourceDTO dataSource, Connection pooled, String catalog, String schema) {
+        DatabaseTypeEnum databaseType = DatabaseTypeEnum.findByCode(dataSource.getDatabaseType());
+        if (DatabaseTypeEnum.MYSQL == databaseType) {
+            return new MySqlDataBaseQuery(dataSource, catalog, schema) {
+                {
+                    connection = pooled;
+                }
+            };
+        } else if (DatabaseTypeEnum.PG_SQL == databaseType) {
+            return new PostgreSqlDataBaseQuery(dataSource, catalog, schema) {
+                {
+                    connection = pooled;
+                }
+            };
+        } else if (DatabaseTypeEnum.ORACLE == databaseType) {
+            return new OracleDataBaseQuery(dataSource, catalog, schema) {
+                {
+                    connection = pooled;
+                }
+            };
+        }
+        throw new BizException("不支持的数据库类型[" + dataSource.getDatabaseType() + "]");
+    }
+
+    private interface QueryFunction<T> {
+        T apply(AbstractDatabaseQuery query) throws Exception;
+    }
+
+    private static class Entry {
+        private final List<String> value;
+        private final long expireTime;
+
+        private Entry(List<String> value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.ilsmp.base.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 已保存数据源的连接池, 按数据源id和连接地址复用连接, 空闲连接定时回收. 连接池在各项目间共用, 只在插件卸载时关闭全部连接池
+ */
+public class DataSourcePoolService implements Disposable {
+    public static final int MAX_ACTIVE = 8;
+    private static final long MAX_WAIT = TimeUnit.SECONDS.toMillis(30);
+    private static final long EVICTION_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long MIN_EVICTABLE_IDLE = TimeUnit.MINUTES.toMillis(5);
+
+    private final Map<String, DruidDataSource> pools = new ConcurrentHashMap<>();
+
+    public static DataSourcePoolService getInstance() {
+        return ServiceManager.getService(DataSourcePoolService.class);
+    }
+
+    /**
+     * 从连接池借出连接, close即归还. PG/MySQL的库写在连接地址中, 不同库使用各自的连接池
+     */
+    public Connection getConnection(DataSourceDTO dataSource) {
+        String url = getUrl(dataSource);
+        String key = dataSource.getId() + "@" + url;
+        DruidDataSource pool = pools.compute(key, (k, exist) -> {
+            if (exist != null && !exist.isClosed()
+                    && Objects.equals(exist.getUsername(), dataSource.getUsername())
+                    && Objects.equals(exist.getPassword(), dataSource.getPassword())) {
+                return exist;
+            }
+            if (exist != null) {
+                exist.close();
+            }
+            return newPool(dataSource, url);
+        });
+        try {
+            return pool.getConnection(MAX_WAIT);
+        } catch (SQLException e) {
+            //获取失败后连接池不再重试, 下次重新创建
+            if (pools.remove(key, pool)) {
+                pool.close();
+            }
+            throw new BizException(e.getMessage(), e);
+        }
+    }
+
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        String prefix = id + "@";
+        pools.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().close();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void closeAll() {
+        pools.entrySet().removeIf(entry -> {
+            entry.getValue().close();
+            return true;
+        });
+    }
+
+    @Override
+    public void dispose() {
+        closeAll();
+    }
+
+    private DruidDataSource newPool(DataSourceDTO dataSource, String url) {
+        DruidDataSource pool = new DruidDataSource();
+        pool.setName("base-" + dataSource.getId());
+        pool.setDriverClassLoader(DataSourcePoolService.class.getClassLoader());
+        pool.setDriverClassName(getDriverClassName(dataSource));
+        pool.setUrl(url);
+        pool.setUsername(dataSource.getUsername());
+        pool.setPassword(dataSource.getPassword());
+        Properties properties = new Properties();
+        properties.put("remarks", "true");
+        properties.put("useInformationSchema", "true");
+        properties.put("ResultSetMetaDataOptions", "1");
+        pool.setConnectProperties(properties);
+
+        pool.setInitialSize(0);
+        pool.setMinIdle(0);
+        pool.setMaxActive(MAX_ACTIVE);
+        pool.setMaxWait(MAX_WAIT);
+        pool.setTimeBetweenEvictionRunsMillis(EVICTION_INTERVAL);
+        pool.setMinEvictableIdleTimeMillis(MIN_EVICTABLE_IDLE);
+        pool.setValidationQuery(isOracle(dataSource) ? "SELECT 1 FROM DUAL" : "SELECT 1");
+        pool.setTestWhileIdle(true);
+        pool.setTestOnBorrow(false);
+        //连接失败时直接抛出, 不在后台反复重连
+        pool.setConnectionErrorRetryAttempts(0);
+        pool.setBreakAfterAcquireFailure(true);
+        pool.setFailFast(true);
+        return pool;
+    }
+
+    /**
+     * 与JdbcUtils.getConnection保持一致
+     */
+    private String getUrl(DataSourceDTO dataSource) {
+        String url;
+        switch (getDatabaseType(dataSource)) {
+            case MYSQL:
+                url = "jdbc:mysql://";
+                break;
+            case PG_SQL:
+                url = "jdbc:postgresql://";
+                break;
+            case ORACLE:
+                url = "jdbc:oracle:thin:@//";
+                break;
+            default:
+                throw new BizException("不支持的数据库类型[" + dataSource.getDatabaseType() + "]");
+        }
+        url = url + dataSource.getHost() + ":" + dataSource.getPort();
+        if (isOracle(dataSource)) {
+            url = url + "/" + dataSource.getSid();
+        } else if (StringUtils.isNotBlank(dataSource.getDatabase())) {
+            url = url + "/" + dataSource.getDatabase();
+        }
+        if (StringUtils.isNotBlank(dataSource.getOption())) {
+            url = url + "?" + dataSource.getOption();
+        }
+        return url;
+    }
+
+    private String getDriverClassName(DataSourceDTO dataSource) {
+        switch (getDatabaseType(dataSource)) {
+            case MYSQL:
+                return "com.mysql.jdbc.Driver";
+            case PG_SQL:
+                return "org.postgresql.Driver";
+            case ORACLE:
+                return "oracle.jdbc.OracleDriver";
+            default:
+                throw new BizException("不支持的数据库类型[" + dataSource.getDatabaseType() + "]");
+        }
+    }
+
+    private DatabaseTypeEnum getDatabaseType(DataSourceDTO dataSource) {
+        DatabaseTypeEnum databaseType = DatabaseTypeEnum.findByCode(dataSource.getDatabaseType());
+        if (databaseType == null) {
+            throw new BizException("不支持的数据库类型[" + dataSource.getDatabaseType() + "]");
+        }
+        return databaseType;
+    }
+
+    private boolean isOracle(DataSourceDTO dataSource) {
+        return DatabaseTypeEnum.ORACLE.getCode().equals(dataSource.getDatabaseType());
+    }
+
+}
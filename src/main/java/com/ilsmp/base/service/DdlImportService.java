@@ -0,0 +1,156 @@
+package com.ilsmp.base.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.DdlStatementReader;
+import com.ilsmp.base.util.DdlTableCache;
+import com.ilsmp.base.util.DdlUtils;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * DDL导入, 边读边拆分语句, 只解析CREATE TABLE并多线程解析, 结果按语句顺序返回.
+ * 解析在BackgroundExecutorService的CPU池中进行, 队列满时由读取线程自己解析, 内存占用与文件大小无关.
+ * 未指定方言时按开头内容识别, 建表语句的解析结果由DdlTableCache缓存
+ */
+public class DdlImportService {
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * @param databaseType 为null时自动识别
+     */
+    public List<Table> importFile(Path file, DatabaseTypeEnum databaseType, ProgressIndicator indicator) {
+        if (databaseType == null) {
+            databaseType = detect(file);
+        }
+        try (Reader reader = Files.newBufferedReader(file, CrudUtils.UTF_8)) {
+            return importDdl(reader, Files.size(file), databaseType, indicator);
+        } catch (IOException e) {
+            throw new BizException("SQL文件读取失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param databaseType 为null时自动识别
+     */
+    public List<Table> importText(String ddl, DatabaseTypeEnum databaseType) {
+        if (databaseType == null) {
+            databaseType = DdlUtils.detect(ddl);
+        }
+        try (Reader reader = new StringReader(ddl)) {
+            return importDdl(reader, ddl.length(), databaseType, null);
+        } catch (IOException e) {
+            throw new BizException("DDL读取失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param totalChars 用于估算进度, 文件按字节数近似
+     */
+    private List<Table> importDdl(Reader reader, long totalChars, DatabaseTypeEnum databaseType,
+                                  ProgressIndicator indicator) throws IOException {
+        DdlStatementReader statementReader = new DdlStatementReader(reader, databaseType);
+        ExecutorService executor = BackgroundExecutorService.getInstance().cpu();
+        if (indicator != null) {
+            indicator.setIndeterminate(totalChars <= 0);
+        }
+        //任务完成后FutureTask不再引用语句文本, 这里只保留解析结果
+        List<Future<List<Table>>> futures = new ArrayList<>();
+        try {
+            List<String> comments = new ArrayList<>();
+            String statement;
+            while ((statement = statementReader.next()) != null) {
+                if (StringUtils.startsWithIgnoreCase(statement, "COMMENT")) {
+                    comments.add(statement);
+                    continue;
+                }
+                if (indicator != null) {
+                    indicator.checkCanceled();
+                    if (totalChars > 0) {
+                        indicator.setFraction(Math.min(1.0, (double) statementReader.getReadChars() / totalChars));
+                    }
+                    indicator.setText2("已读取" + futures.size() + "条建表语句");
+                }
+                String ddl = statement;
+                futures.add(executor.submit(() -> parse(ddl, databaseType)));
+            }
+            List<Table> tables = new ArrayList<>(futures.size());
+            for (Future<List<Table>> future : futures) {
+                tables.addAll(await(future, indicator));
+            }
+            if (!comments.isEmpty()) {
+                Map<String, Table> tableMap = new HashMap<>(tables.size() * 2);
+                tables.forEach(table -> tableMap.put(DdlUtils.lowerName(table.getTableName()), table));
+                for (String comment : comments) {
+                    DdlUtils.applyComment(comment, databaseType, tableMap);
+                }
+            }
+            return tables;
+        } finally {
+            //取消或失败时丢弃还在排队的语句, 已完成的不受影响
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private List<Table> parse(String ddl, DatabaseTypeEnum databaseType) {
+        try {
+            return DdlTableCache.getTables(ddl, databaseType);
+        } catch (Exception e) {
+            throw new BizException(e.getMessage() + "\n" + StringUtils.abbreviate(ddl, 200), e);
+        }
+    }
+
+    private DatabaseTypeEnum detect(Path file) {
+        char[] sample = new char[SAMPLE_SIZE];
+        try (Reader reader = Files.newBufferedReader(file, CrudUtils.UTF_8)) {
+            int length = 0;
+            int n;
+            while (length < sample.length && (n = reader.read(sample, length, sample.length - length)) > 0) {
+                length += n;
+            }
+            return DdlUtils.detect(new String(sample, 0, length));
+        } catch (IOException e) {
+            //按文件内容识别失败时交给后续读取报错
+            return DatabaseTypeEnum.MYSQL;
+        }
+    }
+
+    private List<Table> await(Future<List<Table>> future, ProgressIndicator indicator) {
+        while (true) {
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (indicator != null) {
+                    indicator.checkCanceled();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new BizException("DDL解析失败", cause);
+            }
+        }
+    }
+}
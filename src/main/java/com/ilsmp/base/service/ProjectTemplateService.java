@@ -1,61 +1,152 @@
 package com.ilsmp.base.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.fastjson.JSON;
 import com.github.mars05.crud.hub.common.dto.FileTemplateDTO;
 import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
 import com.github.mars05.crud.hub.common.exception.BizException;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.google.common.base.Preconditions;
 import com.ilsmp.base.dao.mapper.ProjectTemplateMapper;
 import com.ilsmp.base.dao.model.ProjectTemplateDO;
 import com.ilsmp.base.dto.ProjectTemplateRespDTO;
+import com.ilsmp.base.dto.TemplateImportResultDTO;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.HashUtils;
 
 public class ProjectTemplateService {
-    private final ProjectTemplateMapper projectTemplateMapper = CrudUtils.getBean(ProjectTemplateMapper.class);
+    private final ProjectTemplateMapper projectTemplateMapper;
+    private final TemplateStoreService templateStoreService;
+    /**
+     * 已解析的模板详情, 按id缓存, fileTemplatesHash不一致时重新解析
+     */
+    private final Map<Long, Detail> detailCache = new ConcurrentHashMap<>();
+
+    public ProjectTemplateService() {
+        this(CrudUtils.getBean(ProjectTemplateMapper.class), CrudUtils.getBean(TemplateStoreService.class));
+    }
+
+    /**
+     * 基准测试中使用内存中的mapper和临时目录
+     */
+    public ProjectTemplateService(ProjectTemplateMapper projectTemplateMapper, TemplateStoreService templateStoreService) {
+        this.projectTemplateMapper = projectTemplateMapper;
+        this.templateStoreService = templateStoreService;
+    }
 
     public void create(ProjectTemplateDTO reqDTO) {
         //校验
-        ProjectTemplateDO newDO = BeanUtils.convertBean(reqDTO, ProjectTemplateDO.class);
+        ProjectTemplateDO newDO = ConvertUtils.toProjectTemplateDO(reqDTO);
         checkRepeat(newDO);
         //新增
-        newDO.setFileTemplates(JSON.toJSONString(reqDTO.getFileTemplateList()));
+        newDO.setFileTemplates(null);
+        newDO.setFileTemplatesHash(templateStoreService.save(JSON.toJSONString(reqDTO.getFileTemplateList())));
         projectTemplateMapper.insert(newDO);
+        detailCache.remove(newDO.getId());
+    }
+
+    /**
+     * 批量导入, id或模板内容(fileTemplatesHash)已存在、或与本批次中前面的模板重复时跳过, 模板头信息一次写入
+     */
+    public TemplateImportResultDTO createBatch(List<ProjectTemplateDTO> reqDTOList) {
+        TemplateImportResultDTO resultDTO = new TemplateImportResultDTO();
+        Set<Long> ids = new HashSet<>();
+        Set<String> hashes = new HashSet<>();
+        List<ProjectTemplateDO> newDOList = new ArrayList<>(reqDTOList.size());
+        for (ProjectTemplateDTO reqDTO : reqDTOList) {
+            ProjectTemplateDO newDO = ConvertUtils.toProjectTemplateDO(reqDTO);
+            String fileTemplates = JSON.toJSONString(reqDTO.getFileTemplateList());
+            String hash = HashUtils.sha256(fileTemplates);
+            if (!ids.add(newDO.getId()) || projectTemplateMapper.existsById(newDO.getId())
+                    || !hashes.add(hash) || projectTemplateMapper.existsByFileTemplatesHash(hash)) {
+                resultDTO.getSkippedList().add(reqDTO.getName());
+                continue;
+            }
+            newDO.setFileTemplates(null);
+            newDO.setFileTemplatesHash(templateStoreService.save(fileTemplates));
+            newDOList.add(newDO);
+            resultDTO.getImportedList().add(reqDTO.getName());
+        }
+        projectTemplateMapper.insertBatch(newDOList);
+        newDOList.forEach(newDO -> detailCache.remove(newDO.getId()));
+        return resultDTO;
     }
 
     public void update(ProjectTemplateDTO reqDTO) {
         //校验
-        ProjectTemplateDO oldDO = projectTemplateMapper.selectById(reqDTO.getId());
+        ProjectTemplateDO oldDO = projectTemplateMapper.selectViewById(reqDTO.getId());
         Preconditions.checkNotNull(oldDO, "项目模板不存在");
-        ProjectTemplateDO newDO = BeanUtils.convertBean(reqDTO, ProjectTemplateDO.class);
+        String oldHash = oldDO.getFileTemplatesHash();
+        ProjectTemplateDO newDO = ConvertUtils.toProjectTemplateDO(reqDTO);
         //修改
-        newDO.setFileTemplates(JSON.toJSONString(reqDTO.getFileTemplateList()));
+        newDO.setFileTemplates(null);
+        newDO.setFileTemplatesHash(templateStoreService.save(JSON.toJSONString(reqDTO.getFileTemplateList())));
         projectTemplateMapper.updateById(newDO);
+        detailCache.remove(newDO.getId());
+        releaseFileTemplates(oldHash);
     }
 
     public List<ProjectTemplateRespDTO> list() {
-        return BeanUtils.convertList(projectTemplateMapper.selectList(), ProjectTemplateRespDTO.class);
+        return ConvertUtils.convertList(projectTemplateMapper.selectViewList(), ConvertUtils::toProjectTemplateRespDTO);
     }
 
+    /**
+     * 每次返回新的DTO, fileTemplateList为缓存中的只读列表, 其中的FileTemplateDTO不要修改
+     */
     public ProjectTemplateRespDTO detail(Long id) {
-        ProjectTemplateDO detail = projectTemplateMapper.selectById(id);
+        ProjectTemplateDO detail = projectTemplateMapper.selectViewById(id);
         Preconditions.checkNotNull(detail, "项目模板不存在");
-        ProjectTemplateRespDTO respDTO = BeanUtils.convertBean(detail, ProjectTemplateRespDTO.class);
-        respDTO.setFileTemplateList(JSON.parseArray(detail.getFileTemplates(), FileTemplateDTO.class));
-        return respDTO;
+        Detail cached = detailCache.get(id);
+        if (cached == null || !Objects.equals(cached.version, detail.getFileTemplatesHash())) {
+            ProjectTemplateRespDTO respDTO = ConvertUtils.toProjectTemplateRespDTO(detail);
+            //迁移失败的旧数据仍在fileTemplates中
+            String fileTemplates = detail.getFileTemplatesHash() != null
+                    ? templateStoreService.load(detail.getFileTemplatesHash()) : detail.getFileTemplates();
+            respDTO.setFileTemplateList(Collections.unmodifiableList(JSON.parseArray(fileTemplates, FileTemplateDTO.class)));
+            cached = new Detail(detail.getFileTemplatesHash(), respDTO);
+            detailCache.put(id, cached);
+        }
+        return ConvertUtils.copy(cached.value);
     }
 
     public void delete(Long id) {
+        ProjectTemplateDO oldDO = projectTemplateMapper.selectViewById(id);
         projectTemplateMapper.deleteById(id);
+        detailCache.remove(id);
+        releaseFileTemplates(oldDO.getFileTemplatesHash());
+    }
+
+    /**
+     * 没有模板再引用时删除内容文件
+     */
+    private void releaseFileTemplates(String hash) {
+        if (hash != null && !projectTemplateMapper.existsByFileTemplatesHash(hash)) {
+            templateStoreService.delete(hash);
+        }
     }
 
     private void checkRepeat(ProjectTemplateDO param) {
-        if (projectTemplateMapper.selectList().stream().anyMatch(projectTemplateDO ->
-                projectTemplateDO.getId().equals(param.getId()))) {
+        if (projectTemplateMapper.existsById(param.getId())) {
             throw new BizException("模板已存在");
         }
     }
 
+    private static class Detail {
+        private final String version;
+        private final ProjectTemplateRespDTO value;
+
+        private Detail(String version, ProjectTemplateRespDTO value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
 }
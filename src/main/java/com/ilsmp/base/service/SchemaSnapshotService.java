@@ -0,0 +1,168 @@
+package com.ilsmp.base.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.serializer.SimplePropertyPreFilter;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.ilsmp.base.util.ConvertUtils;
+import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.HashUtils;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+
+/**
+ * 数据源元数据快照, gzip压缩的JSON, 保存在IDE系统目录下, 按数据源id分目录:
+ * names.json.gz保存库/模式/表名列表, tables-*.json.gz按库和模式保存表结构.
+ * 读过的快照留在内存里, 返回的表结构都是副本, 调用方可以随意修改
+ */
+public class SchemaSnapshotService {
+    private static final Logger LOG = Logger.getInstance(SchemaSnapshotService.class);
+    private static final String NAMES_FILE = "names.json.gz";
+    /**
+     * 驼峰名和类型简称由setter计算, 不需要写入快照
+     */
+    private static final SimplePropertyPreFilter FILTER = new SimplePropertyPreFilter();
+
+    static {
+        Collections.addAll(FILTER.getExcludes(), "lowerCamelName", "upperCamelName", "typeSimpleName");
+    }
+
+    private final Path root = Paths.get(PathManager.getSystemPath(), "base-plugin", "schema");
+    private final Map<Long, Map<String, List<String>>> names = new ConcurrentHashMap<>();
+    private final Map<Path, Map<String, Table>> tables = new ConcurrentHashMap<>();
+
+    public List<String> getNames(Long id, String key) {
+        return getNames(id).get(key);
+    }
+
+    public synchronized void saveNames(Long id, String key, List<String> nameList) {
+        Map<String, List<String>> map = new LinkedHashMap<>(getNames(id));
+        if (nameList.equals(map.put(key, new ArrayList<>(nameList)))) {
+            return;
+        }
+        write(getDir(id).resolve(NAMES_FILE), map);
+        names.put(id, map);
+    }
+
+    /**
+     * 结果顺序与tableNameList一致, 快照中没有的表不在结果中
+     */
+    public List<Table> getTables(Long id, String database, String schema, List<String> tableNameList) {
+        Map<String, Table> map = getTables(getTableFile(id, database, schema));
+        List<Table> result = new ArrayList<>(tableNameList.size());
+        for (String tableName : tableNameList) {
+            Table table = map.get(tableName);
+            if (table != null) {
+                result.add(ConvertUtils.copy(table));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用查询结果更新快照, tableNameList中查不到的表视为已删除
+     */
+    public synchronized void saveTables(Long id, String database, String schema, List<String> tableNameList,
+                                        List<Table> tableList) {
+        Path file = getTableFile(id, database, schema);
+        Map<String, Table> map = new LinkedHashMap<>(getTables(file));
+        tableNameList.forEach(map::remove);
+        tableList.forEach(table -> map.put(table.getTableName(), ConvertUtils.copy(table)));
+        write(file, new ArrayList<>(map.values()));
+        tables.put(file, map);
+    }
+
+    public synchronized void delete(Long id) {
+        names.remove(id);
+        Path dir = getDir(id);
+        tables.keySet().removeIf(file -> file.startsWith(dir));
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LOG.warn("快照删除失败: " + dir, e);
+        }
+    }
+
+    private Map<String, List<String>> getNames(Long id) {
+        return names.computeIfAbsent(id, k -> {
+            String json = read(getDir(id).resolve(NAMES_FILE));
+            if (json == null) {
+                return Collections.emptyMap();
+            }
+            return JSON.parseObject(json, new TypeReference<LinkedHashMap<String, List<String>>>() {
+            });
+        });
+    }
+
+    private Map<String, Table> getTables(Path file) {
+        return tables.computeIfAbsent(file, k -> {
+            String json = read(file);
+            if (json == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, Table> map = new LinkedHashMap<>();
+            JSON.parseArray(json, Table.class).forEach(table -> map.put(table.getTableName(), table));
+            return map;
+        });
+    }
+
+    private Path getDir(Long id) {
+        return root.resolve(String.valueOf(id));
+    }
+
+    private Path getTableFile(Long id, String database, String schema) {
+        return getDir(id).resolve("tables-" + HashUtils.sha256(database + "/" + schema).substring(0, 16) + ".json.gz");
+    }
+
+    private String read(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), CrudUtils.UTF_8);
+        } catch (IOException e) {
+            LOG.warn("快照读取失败: " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 先写临时文件再替换, 中途失败不会留下半个快照
+     */
+    private void write(Path file, Object value) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write(JSON.toJSONString(value, FILTER).getBytes(CrudUtils.UTF_8));
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("快照保存失败: " + file, e);
+        }
+    }
+}
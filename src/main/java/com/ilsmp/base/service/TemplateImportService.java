@@ -0,0 +1,96 @@
+package com.ilsmp.base.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
+import com.ilsmp.base.dto.TemplateImportResultDTO;
+import com.ilsmp.base.rpc.HubClient;
+import com.ilsmp.base.rpc.request.MarketplaceGetRequest;
+import com.ilsmp.base.rpc.response.ProjectTemplateResponse;
+import com.ilsmp.base.util.CrudUtils;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+/**
+ * 市场模板批量导入: 并发拉取模板详情, 全部返回后一次写入
+ */
+public class TemplateImportService {
+    /**
+     * 同时进行的请求数
+     */
+    private static final int MAX_REQUESTS = 8;
+
+    private final HubClient hubClient = new HubClient();
+    private final ProjectTemplateService projectTemplateService = CrudUtils.getBean(ProjectTemplateService.class);
+
+    /**
+     * 单个模板拉取失败只记录在结果中, 不影响其他模板; 取消时中止所有未完成的请求
+     */
+    public TemplateImportResultDTO importByIds(List<Long> ids, ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+        Semaphore semaphore = new Semaphore(MAX_REQUESTS);
+        List<CompletableFuture<ProjectTemplateResponse>> futures = new ArrayList<>(ids.size());
+        List<ProjectTemplateDTO> templates = new ArrayList<>(ids.size());
+        List<String> failedList = new ArrayList<>();
+        try {
+            for (Long id : ids) {
+                acquire(semaphore, indicator);
+                CompletableFuture<ProjectTemplateResponse> future = hubClient.executeAsync(new MarketplaceGetRequest().setId(id).setForceRevalidate(true));
+                future.whenComplete((response, error) -> semaphore.release());
+                futures.add(future);
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    ProjectTemplateResponse response = await(futures.get(i), indicator);
+                    if (response.isSuccess()) {
+                        templates.add(response.getProjectTemplate());
+                    } else {
+                        failedList.add(ids.get(i) + ": " + response.getMessage());
+                    }
+                } catch (ExecutionException e) {
+                    failedList.add(ids.get(i) + ": " + e.getCause().getMessage());
+                }
+                indicator.setFraction((double) (i + 1) / futures.size());
+            }
+        } catch (ProcessCanceledException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        indicator.setText2("保存中...");
+        TemplateImportResultDTO resultDTO = projectTemplateService.createBatch(templates);
+        resultDTO.getFailedList().addAll(failedList);
+        return resultDTO;
+    }
+
+    private void acquire(Semaphore semaphore, ProgressIndicator indicator) {
+        try {
+            while (!semaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                indicator.checkCanceled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        }
+    }
+
+    private <T> T await(Future<T> future, ProgressIndicator indicator) throws ExecutionException {
+        while (true) {
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                indicator.checkCanceled();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(e);
+            }
+        }
+    }
+}
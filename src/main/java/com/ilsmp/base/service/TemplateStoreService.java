@@ -0,0 +1,71 @@
+package com.ilsmp.base.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.ilsmp.base.util.CrudUtils;
+import com.ilsmp.base.util.HashUtils;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+
+/**
+ * 项目模板的文件模板内容(fileTemplates JSON), 保存在IDE配置目录下, 以内容的sha256命名, 相同内容只存一份.
+ * base-plugin.xml中只保存模板头信息和fileTemplatesHash, 内容在查看模板详情时才读取
+ */
+public class TemplateStoreService {
+    private static final Logger LOG = Logger.getInstance(TemplateStoreService.class);
+
+    private final Path root;
+
+    public TemplateStoreService() {
+        this(Paths.get(PathManager.getConfigPath(), "base-plugin", "templates"));
+    }
+
+    public TemplateStoreService(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 返回内容hash
+     */
+    public String save(String fileTemplates) {
+        String hash = HashUtils.sha256(fileTemplates);
+        Path file = getFile(hash);
+        if (Files.exists(file)) {
+            return hash;
+        }
+        try {
+            Files.createDirectories(root);
+            Path tmp = file.resolveSibling(hash + ".tmp");
+            Files.write(tmp, fileTemplates.getBytes(CrudUtils.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new BizException("模板保存失败: " + e.getMessage(), e);
+        }
+        return hash;
+    }
+
+    public String load(String hash) {
+        try {
+            return new String(Files.readAllBytes(getFile(hash)), CrudUtils.UTF_8);
+        } catch (IOException e) {
+            throw new BizException("模板内容读取失败: " + e.getMessage(), e);
+        }
+    }
+
+    public void delete(String hash) {
+        try {
+            Files.deleteIfExists(getFile(hash));
+        } catch (IOException e) {
+            LOG.warn("模板内容删除失败: " + hash, e);
+        }
+    }
+
+    private Path getFile(String hash) {
+        return root.resolve(hash + ".json");
+    }
+}
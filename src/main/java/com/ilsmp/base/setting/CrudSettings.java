@@ -6,24 +6,28 @@ import java.util.stream.Collectors;
 
 import com.alibaba.fastjson.JSON;
 import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.ilsmp.base.dao.model.DataSourceDO;
 import com.ilsmp.base.dao.model.ProjectTemplateDO;
 import com.ilsmp.base.dto.GenerateDTO;
+import com.ilsmp.base.service.TemplateStoreService;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.io.StreamUtil;
 import org.jetbrains.annotations.Nullable;
 
 @State(name = "CrudSettings", storages = @Storage("base-plugin.xml"))
 public class CrudSettings implements PersistentStateComponent<CrudState> {
+    private static final Logger LOG = Logger.getInstance(CrudSettings.class);
     private static final CrudSettings CRUD_SETTINGS = ServiceManager.getService(CrudSettings.class);
     private CrudState myState = new CrudState();
 
     private GenerateDTO generateDTO;
+    private boolean templatesMigrated;
 
     @Nullable
     @Override
@@ -34,13 +38,14 @@ public class CrudSettings implements PersistentStateComponent<CrudState> {
     @Override
     public void loadState(CrudState state) {
         myState = state;
+        templatesMigrated = false;
     }
 
     public static List<DataSourceDO> getDataSources() {
         return CRUD_SETTINGS.myState.getDataSources();
     }
 
-    public static List<ProjectTemplateDO> getProjectTemplates() {
+    public static synchronized List<ProjectTemplateDO> getProjectTemplates() {
         if (!CRUD_SETTINGS.myState.isInitialized()) {
             try {
                 InputStream is = CrudSettings.class.getResourceAsStream("/templates/default_pts.json");
@@ -51,8 +56,9 @@ public class CrudSettings implements PersistentStateComponent<CrudState> {
                 CRUD_SETTINGS.myState.getProjectTemplates().clear();
                 List<ProjectTemplateDTO> list = JSON.parseArray(readText, ProjectTemplateDTO.class);
                 CRUD_SETTINGS.myState.getProjectTemplates().addAll(list.stream().map(projectTemplateDTO -> {
-                    ProjectTemplateDO projectTemplateDO = BeanUtils.convertBean(projectTemplateDTO, ProjectTemplateDO.class);
-                    projectTemplateDO.setFileTemplates(JSON.toJSONString(projectTemplateDTO.getFileTemplateList()));
+                    ProjectTemplateDO projectTemplateDO = ConvertUtils.toProjectTemplateDO(projectTemplateDTO);
+                    projectTemplateDO.setFileTemplatesHash(CrudUtils.getBean(TemplateStoreService.class)
+                            .save(JSON.toJSONString(projectTemplateDTO.getFileTemplateList())));
                     return projectTemplateDO;
                 }).collect(Collectors.toList()));
             } catch (Exception e) {
@@ -61,9 +67,32 @@ public class CrudSettings implements PersistentStateComponent<CrudState> {
                 CRUD_SETTINGS.myState.setInitialized(true);
             }
         }
+        if (!CRUD_SETTINGS.templatesMigrated) {
+            migrateTemplates();
+        }
         return CRUD_SETTINGS.myState.getProjectTemplates();
     }
 
+    /**
+     * 旧版本把fileTemplates直接存在base-plugin.xml中, 转存到TemplateStoreService后清空
+     */
+    private static void migrateTemplates() {
+        TemplateStoreService templateStoreService = CrudUtils.getBean(TemplateStoreService.class);
+        for (ProjectTemplateDO projectTemplateDO : CRUD_SETTINGS.myState.getProjectTemplates()) {
+            if (projectTemplateDO.getFileTemplates() == null) {
+                continue;
+            }
+            try {
+                projectTemplateDO.setFileTemplatesHash(templateStoreService.save(projectTemplateDO.getFileTemplates()));
+                projectTemplateDO.setFileTemplates(null);
+            } catch (Exception e) {
+                //保留原内容, 下次启动再迁移
+                LOG.warn("模板迁移失败: " + projectTemplateDO.getId(), e);
+            }
+        }
+        CRUD_SETTINGS.templatesMigrated = true;
+    }
+
     public static GenerateDTO getGenerate(String projectName) {
         CRUD_SETTINGS.generateDTO = CRUD_SETTINGS.myState.getGenerateInfoMap().getOrDefault(projectName, new GenerateDTO());
         return CRUD_SETTINGS.generateDTO;
@@ -0,0 +1,62 @@
+package com.ilsmp.base.setting;
+
+import java.io.File;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 项目级生成清单, 记录每个生成文件的内容hash, 用于增量生成
+ */
+@State(name = "BaseGenerateManifest", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class GenerateManifest implements PersistentStateComponent<GenerateManifestState> {
+    private GenerateManifestState myState = new GenerateManifestState();
+
+    public static GenerateManifest getInstance(Project project) {
+        return ServiceManager.getService(project, GenerateManifest.class);
+    }
+
+    @Nullable
+    @Override
+    public GenerateManifestState getState() {
+        return myState;
+    }
+
+    @Override
+    public void loadState(GenerateManifestState state) {
+        myState = state;
+    }
+
+    public String getRenderedHash(String path) {
+        return myState.getRenderedHashMap().get(path);
+    }
+
+    public String getDiskHash(String path) {
+        return myState.getDiskHashMap().get(path);
+    }
+
+    public void put(String path, String renderedHash, String diskHash) {
+        myState.getRenderedHashMap().put(path, renderedHash);
+        myState.getDiskHashMap().put(path, diskHash);
+    }
+
+    /**
+     * 清除磁盘上已不存在的文件的记录, 避免清单无限增长
+     */
+    public void removeMissingFiles() {
+        myState.getRenderedHashMap().keySet().removeIf(path -> !new File(path).exists());
+        myState.getDiskHashMap().keySet().retainAll(myState.getRenderedHashMap().keySet());
+    }
+
+    public void updateDiskHash(String path, String diskHash) {
+        if (myState.getRenderedHashMap().containsKey(path)) {
+            myState.getDiskHashMap().put(path, diskHash);
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.ilsmp.base.setting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Data;
+
+@Data
+public class GenerateManifestState {
+    /**
+     * 文件路径 -> 上次生成时渲染内容的hash
+     */
+    private Map<String, String> renderedHashMap = new ConcurrentHashMap<>();
+    /**
+     * 文件路径 -> 插件最后一次写入(含格式化)后的磁盘内容hash
+     */
+    private Map<String, String> diskHashMap = new ConcurrentHashMap<>();
+
+}
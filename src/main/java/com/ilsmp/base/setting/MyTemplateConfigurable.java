@@ -1,6 +1,7 @@
 package com.ilsmp.base.setting;
 
 import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
 
 import com.github.mars05.crud.hub.common.exception.BizException;
 import com.ilsmp.base.dto.ProjectTemplateRespDTO;
@@ -12,6 +13,8 @@ import com.ilsmp.base.service.ProjectTemplateService;
 import com.ilsmp.base.ui.CrudList;
 import com.ilsmp.base.ui.ListElement;
 import com.ilsmp.base.util.CrudUtils;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.options.SearchableConfigurable;
 import com.intellij.openapi.ui.Messages;
@@ -48,26 +51,40 @@ public class MyTemplateConfigurable implements SearchableConfigurable {
                 Messages.showErrorDialog("请选择模板", "错误");
                 return;
             }
+            ProjectTemplateRespDTO respDTO;
             try {
-                ProjectTemplateRespDTO respDTO = projectTemplateService.detail(selectedElement.getId());
-                ProjectTemplateResponse response;
-                if (respDTO.getPublicFlag() == 1) {
-                    response = hubClient.execute(new MarketplaceGetRequest().setId(respDTO.getId()));
-                } else {
-                    response = hubClient.execute(new TokenGetRequest().setAccessToken(respDTO.getAccessToken()));
-                }
-                if (!response.isSuccess()) {
-                    throw new BizException(response.getMessage());
-                }
-                int result = Messages.showYesNoDialog(selectedElement.getName(), "确认刷新？", Messages.getQuestionIcon());
-                if (result == Messages.YES) {
-                    projectTemplateService.update(response.getProjectTemplate());
-                    Messages.showInfoMessage("刷新成功", "提示");
-                    getList();
-                }
+                respDTO = projectTemplateService.detail(selectedElement.getId());
             } catch (Exception exception) {
                 Messages.showErrorDialog(exception.getMessage(), "错误");
+                return;
             }
+            CompletableFuture<ProjectTemplateResponse> future;
+            if (respDTO.getPublicFlag() == 1) {
+                future = hubClient.executeAsync(new MarketplaceGetRequest().setId(respDTO.getId()).setForceRevalidate(true));
+            } else {
+                future = hubClient.executeAsync(new TokenGetRequest().setAccessToken(respDTO.getAccessToken()));
+            }
+            refreshButton.setEnabled(false);
+            ModalityState modalityState = ModalityState.current();
+            future.whenComplete((response, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+                refreshButton.setEnabled(true);
+                try {
+                    if (error != null) {
+                        throw error;
+                    }
+                    if (!response.isSuccess()) {
+                        throw new BizException(response.getMessage());
+                    }
+                    int result = Messages.showYesNoDialog(selectedElement.getName(), "确认刷新？", Messages.getQuestionIcon());
+                    if (result == Messages.YES) {
+                        projectTemplateService.update(response.getProjectTemplate());
+                        Messages.showInfoMessage("刷新成功", "提示");
+                        getList();
+                    }
+                } catch (Throwable exception) {
+                    Messages.showErrorDialog(exception.getMessage(), "错误");
+                }
+            }, modalityState));
         });
 
         deleteButton.addActionListener(e -> {
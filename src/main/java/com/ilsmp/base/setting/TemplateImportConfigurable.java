@@ -1,32 +1,54 @@
 package com.ilsmp.base.setting;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
 import com.github.mars05.crud.hub.common.exception.BizException;
+import com.ilsmp.base.dto.TemplateImportResultDTO;
 import com.ilsmp.base.rpc.HubClient;
-import com.ilsmp.base.rpc.request.MarketplaceGetRequest;
 import com.ilsmp.base.rpc.request.MarketplaceListRequest;
 import com.ilsmp.base.rpc.request.TokenGetRequest;
 import com.ilsmp.base.rpc.response.MarketplaceListResponse;
 import com.ilsmp.base.rpc.response.ProjectTemplateResponse;
 import com.ilsmp.base.service.ProjectTemplateService;
+import com.ilsmp.base.service.TemplateImportService;
 import com.ilsmp.base.ui.CrudList;
 import com.ilsmp.base.ui.ListElement;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
-import com.ilsmp.base.util.ThreadUtils;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.options.SearchableConfigurable;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.SimpleTextAttributes;
 import com.intellij.ui.components.JBLoadingPanel;
 import com.intellij.ui.components.JBScrollPane;
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class TemplateImportConfigurable implements SearchableConfigurable, Disposable {
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH_SIZE = 10;
+    private static final int SEARCH_DELAY = 300;
+    /**
+     * 距列表底部不足这么多像素时加载下一页
+     */
+    private static final int LOAD_THRESHOLD = 200;
+
     private JPanel myMainPanel;
     private CrudList marketplaceList;
     private JScrollPane myScrollPane;
@@ -45,42 +67,50 @@ public class TemplateImportConfigurable implements SearchableConfigurable, Dispo
     private JScrollPane myDescScrollPane;
 
     private final HubClient hubClient = new HubClient();
+    private final Timer searchTimer = new Timer(SEARCH_DELAY, e -> search());
+
+    //以下分页状态只在EDT中读写
+    private int generation;
+    private ModalityState modalityState;
+    private String keyword;
+    private int nextPage;
+    private boolean hasMore;
+    /**
+     * 正在加载的页, 为null时没有加载中的页
+     */
+    private CompletableFuture<?> pageFuture;
+    /**
+     * 预取的下一页, 页码为prefetchPage
+     */
+    private CompletableFuture<MarketplaceListResponse> prefetchFuture;
+    private int prefetchPage;
 
     private final ProjectTemplateService projectTemplateService = CrudUtils.getBean(ProjectTemplateService.class);
+    private final TemplateImportService templateImportService = CrudUtils.getBean(TemplateImportService.class);
 
     public TemplateImportConfigurable() {
-        searchButton.addActionListener(e -> getList(new MarketplaceListRequest()));
+        searchTimer.setRepeats(false);
+        searchButton.addActionListener(e -> search());
+        keywordTextField.addActionListener(e -> search());
+        keywordTextField.getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        myScrollPane.getVerticalScrollBar().getModel().addChangeListener(e -> loadMoreIfNeeded());
         importButton.addActionListener(e -> {
-            if (marketplaceList.getSelectedElement() == null) {
+            List<ListElement> selectedList = marketplaceList.getSelectedElementList();
+            if (selectedList.isEmpty()) {
                 Messages.showErrorDialog("请选择模板", "错误");
                 return;
             }
-            try {
-                ProjectTemplateResponse response = hubClient.execute(new MarketplaceGetRequest().setId(marketplaceList.getSelectedElement().getId()));
-                if (!response.isSuccess()) {
-                    throw new BizException(response.getMessage());
-                }
-                projectTemplateService.create(response.getProjectTemplate());
-                Messages.showInfoMessage("导入成功", "提示");
-                MyTemplateConfigurable.refreshList();
-            } catch (Exception exception) {
-                Messages.showErrorDialog(exception.getMessage(), "错误");
-            }
+            importTemplates(ConvertUtils.convertList(selectedList, ListElement::getId));
         });
         tokenButton.addActionListener(e -> {
             String s = Messages.showInputDialog("令牌", "令牌导入", Messages.getInformationIcon());
-            try {
-                if (s != null) {
-                    ProjectTemplateResponse response = hubClient.execute(new TokenGetRequest().setAccessToken(s));
-                    if (!response.isSuccess()) {
-                        throw new BizException(response.getMessage());
-                    }
-                    projectTemplateService.create(response.getProjectTemplate());
-                    Messages.showInfoMessage("导入成功", "提示");
-                    MyTemplateConfigurable.refreshList();
-                }
-            } catch (Exception exception) {
-                Messages.showErrorDialog(exception.getMessage(), "错误");
+            if (s != null) {
+                importTemplate(hubClient.executeAsync(new TokenGetRequest().setAccessToken(s)));
             }
         });
         marketplaceList.addListSelectionListener(e -> {
@@ -123,7 +153,7 @@ public class TemplateImportConfigurable implements SearchableConfigurable, Dispo
     @Nullable
     @Override
     public JComponent createComponent() {
-        getList(new MarketplaceListRequest());
+        search();
         return myMainPanel;
     }
 
@@ -140,9 +170,18 @@ public class TemplateImportConfigurable implements SearchableConfigurable, Dispo
     public void apply() throws ConfigurationException {
     }
 
+    /**
+     * 设置窗口关闭时只调用disposeUIResources, 由Disposer触发dispose并释放loadingPanel
+     */
     @Override
-    public void dispose() {
+    public void disposeUIResources() {
+        Disposer.dispose(this);
+    }
 
+    @Override
+    public void dispose() {
+        searchTimer.stop();
+        cancelPages();
     }
 
     private void startLoading() {
@@ -160,28 +199,185 @@ public class TemplateImportConfigurable implements SearchableConfigurable, Dispo
         getLoadingPanel().stopLoading();
     }
 
-    private void getList(MarketplaceListRequest request) {
-        ThreadUtils.execute(() -> {
-            long st = System.currentTimeMillis();
-            startLoading();
+    /**
+     * 按关键字重新查询, 取消还未返回的页, 只有第一页显示加载面板
+     */
+    private void search() {
+        searchTimer.stop();
+        cancelPages();
+        modalityState = ModalityState.current();
+        keyword = StringUtils.trimToNull(keywordTextField.getText());
+        nextPage = 1;
+        hasMore = true;
+        marketplaceList.clearElement();
+        marketplaceList.getEmptyText().setText("暂无数据");
+        startLoading();
+        loadNextPage();
+    }
+
+    private void cancelPages() {
+        generation++;
+        if (pageFuture != null) {
+            pageFuture.cancel(true);
+            pageFuture = null;
+        }
+        if (prefetchFuture != null) {
+            prefetchFuture.cancel(true);
+            prefetchFuture = null;
+        }
+        marketplaceList.setPaintBusy(false);
+    }
+
+    /**
+     * 滚动到接近底部, 或者已加载的行不够填满列表时加载下一页
+     */
+    private void loadMoreIfNeeded() {
+        if (pageFuture != null || !hasMore || nextPage == 1) {
+            return;
+        }
+        BoundedRangeModel model = myScrollPane.getVerticalScrollBar().getModel();
+        if (model.getValue() + model.getExtent() >= model.getMaximum() - LOAD_THRESHOLD) {
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        int page = nextPage;
+        int currentGeneration = generation;
+        CompletableFuture<MarketplaceListResponse> future;
+        if (prefetchFuture != null && prefetchPage == page) {
+            future = prefetchFuture;
+            prefetchFuture = null;
+        } else {
+            future = requestPage(page);
+        }
+        pageFuture = future;
+        if (page > 1) {
+            marketplaceList.setPaintBusy(true);
+        }
+        future.whenComplete((response, error) -> {
+            if (error != null || !response.isSuccess()) {
+                String message = error != null ? error.getMessage() : response.getMessage();
+                invokeLater(currentGeneration, () -> onPageFailed(page, message));
+                return;
+            }
+            //列表行在后台线程创建, 分批回到EDT追加
+            List<ListElement> elements = toElements(response.getList());
+            for (int i = 0; i < elements.size(); i += BATCH_SIZE) {
+                List<ListElement> batch = elements.subList(i, Math.min(i + BATCH_SIZE, elements.size()));
+                invokeLater(currentGeneration, () -> marketplaceList.addElements(batch));
+            }
+            invokeLater(currentGeneration, () -> onPageLoaded(page, elements.size()));
+        });
+    }
+
+    private void onPageLoaded(int page, int size) {
+        pageFuture = null;
+        marketplaceList.setPaintBusy(false);
+        if (page == 1) {
+            stopLoading();
+        }
+        nextPage = page + 1;
+        hasMore = size >= PAGE_SIZE;
+        if (hasMore) {
+            prefetchPage = nextPage;
+            prefetchFuture = requestPage(nextPage);
+            loadMoreIfNeeded();
+        }
+    }
+
+    /**
+     * 第一页失败时在列表中显示错误, 后面的页失败时等下次滚动重试
+     */
+    private void onPageFailed(int page, String message) {
+        pageFuture = null;
+        marketplaceList.setPaintBusy(false);
+        if (page == 1) {
+            stopLoading();
+            marketplaceList.getEmptyText().setText(String.valueOf(message), SimpleTextAttributes.ERROR_ATTRIBUTES);
+        }
+    }
+
+    private CompletableFuture<MarketplaceListResponse> requestPage(int page) {
+        return hubClient.executeAsync(new MarketplaceListRequest()
+                .setKeyword(keyword)
+                .setPageNumber(page)
+                .setPageSize(PAGE_SIZE));
+    }
+
+    private List<ListElement> toElements(List<ProjectTemplateDTO> list) {
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        List<ListElement> elements = new ArrayList<>(list.size());
+        for (ProjectTemplateDTO projectTemplateDTO : list) {
+            ListElement listElement = new ListElement(null,
+                    projectTemplateDTO.getId(), projectTemplateDTO.getName() + "（" + projectTemplateDTO.getOrganizationName() + "）");
+            listElement.setProjectTemplateDTO(projectTemplateDTO);
+            elements.add(listElement);
+        }
+        return elements;
+    }
+
+    /**
+     * 已被新的查询取代或界面已关闭时丢弃
+     */
+    private void invokeLater(int currentGeneration, Runnable runnable) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (generation == currentGeneration) {
+                runnable.run();
+            }
+        }, modalityState);
+    }
+
+    /**
+     * 批量导入选中的模板, 在可取消的进度对话框中并发拉取
+     */
+    private void importTemplates(List<Long> ids) {
+        TemplateImportResultDTO resultDTO;
+        try {
+            resultDTO = ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                    () -> templateImportService.importByIds(ids, ProgressManager.getInstance().getProgressIndicator()),
+                    "模板导入中...", true, null);
+        } catch (ProcessCanceledException exception) {
+            return;
+        } catch (Exception exception) {
+            Messages.showErrorDialog(exception.getMessage(), "错误");
+            return;
+        }
+        if (!resultDTO.getImportedList().isEmpty()) {
+            MyTemplateConfigurable.refreshList();
+        }
+        String message = "导入数量: " + resultDTO.getImportedList().size()
+                + "\n跳过数量(已存在相同模板): " + resultDTO.getSkippedList().size();
+        if (resultDTO.getFailedList().isEmpty()) {
+            Messages.showInfoMessage(message, "提示");
+        } else {
+            Messages.showErrorDialog(message + "\n失败数量: " + resultDTO.getFailedList().size()
+                    + "\n" + String.join("\n", resultDTO.getFailedList()), "错误");
+        }
+    }
+
+    private void importTemplate(CompletableFuture<ProjectTemplateResponse> future) {
+        importButton.setEnabled(false);
+        tokenButton.setEnabled(false);
+        ModalityState modalityState = ModalityState.current();
+        future.whenComplete((response, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+            importButton.setEnabled(true);
+            tokenButton.setEnabled(true);
             try {
-                MarketplaceListResponse response = hubClient.execute(request);
-                if (response.isSuccess() && response.getList() != null) {
-                    marketplaceList.clearElement();
-                    for (ProjectTemplateDTO projectTemplateDTO : response.getList()) {
-                        ListElement listElement = new ListElement(null,
-                                projectTemplateDTO.getId(), projectTemplateDTO.getName() + "（" + projectTemplateDTO.getOrganizationName() + "）");
-                        listElement.setProjectTemplateDTO(projectTemplateDTO);
-                        marketplaceList.addElement(listElement);
-                    }
+                if (error != null) {
+                    throw error;
                 }
-            } finally {
-                long sleepTime = 500 - (System.currentTimeMillis() - st);
-                if (sleepTime > 0) {
-                    ThreadUtils.sleep(sleepTime);
+                if (!response.isSuccess()) {
+                    throw new BizException(response.getMessage());
                 }
-                stopLoading();
+                projectTemplateService.create(response.getProjectTemplate());
+                Messages.showInfoMessage("导入成功", "提示");
+                MyTemplateConfigurable.refreshList();
+            } catch (Throwable exception) {
+                Messages.showErrorDialog(exception.getMessage(), "错误");
             }
-        });
+        }, modalityState));
     }
 }
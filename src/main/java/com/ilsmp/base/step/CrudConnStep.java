@@ -2,20 +2,26 @@ package com.ilsmp.base.step;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
 
-import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
 import com.github.mars05.crud.hub.common.dto.DataSourceRespDTO;
 import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
 import com.github.mars05.crud.hub.common.service.DataSourceService;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.ilsmp.base.icon.CrudIcons;
+import com.ilsmp.base.service.DataSourceMetaService;
+import com.ilsmp.base.service.DataSourcePoolService;
+import com.ilsmp.base.service.SchemaSnapshotService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudEditConnDialog;
 import com.ilsmp.base.ui.CrudList;
+import com.ilsmp.base.ui.CrudListLoader;
 import com.ilsmp.base.ui.ListElement;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
@@ -28,8 +34,12 @@ public class CrudConnStep extends ModuleWizardStep {
     private JLabel myConnLabel;
     private JButton myEditConnButton;
     private JButton myRemoveConnButton;
+    private JPanel loadingPanel;
+    private CrudListLoader myListLoader;
 
     private final DataSourceService dataSourceService = CrudUtils.getBean(DataSourceService.class);
+    private final DataSourceMetaService dataSourceMetaService = CrudUtils.getBean(DataSourceMetaService.class);
+    private final SchemaSnapshotService schemaSnapshotService = CrudUtils.getBean(SchemaSnapshotService.class);
 
     public CrudConnStep() {
         myAddConnButton.addActionListener(new AbstractAction() {
@@ -62,6 +72,9 @@ public class CrudConnStep extends ModuleWizardStep {
                 int result = Messages.showYesNoDialog(listElement.getName(), "确认删除？", Messages.getQuestionIcon());
                 if (result == Messages.YES) {
                     dataSourceService.delete(listElement.getId());
+                    dataSourceMetaService.invalidate(listElement.getId());
+                    DataSourcePoolService.getInstance().invalidate(listElement.getId());
+                    schemaSnapshotService.delete(listElement.getId());
                     getList();
                 }
             }
@@ -92,7 +105,7 @@ public class CrudConnStep extends ModuleWizardStep {
                 throw new Exception("请选择一个连接");
             }
             DataSourceRespDTO respDTO = dataSourceService.detail(myConnsList.getSelectedElement().getId());
-            CrudSettings.currentGenerate().setDataSource(BeanUtils.convertBean(respDTO, DataSourceDTO.class));
+            CrudSettings.currentGenerate().setDataSource(ConvertUtils.toDataSourceDTO(respDTO));
         } catch (Exception e) {
             throw new ConfigurationException(e.getMessage(), "连接打开失败");
         }
@@ -101,23 +114,38 @@ public class CrudConnStep extends ModuleWizardStep {
 
     public void getList() {
         if (isStepVisible()) {
-            myConnsList.clearElement();
-            for (DataSourceRespDTO conn : dataSourceService.list()) {
-                Icon icon = null;
-                if (DatabaseTypeEnum.MYSQL.getCode().equals(conn.getDatabaseType())) {
-                    icon = CrudIcons.MYSQL_CONN;
-                } else if (DatabaseTypeEnum.PG_SQL.getCode().equals(conn.getDatabaseType())) {
-                    icon = CrudIcons.PGSQL_CONN;
-                } else if (DatabaseTypeEnum.ORACLE.getCode().equals(conn.getDatabaseType())) {
-                    icon = CrudIcons.ORACLE_CONN;
+            myListLoader.load(myConnsList, () -> {
+                List<ListElement> elements = new ArrayList<>();
+                for (DataSourceRespDTO conn : dataSourceService.list()) {
+                    Icon icon = null;
+                    if (DatabaseTypeEnum.MYSQL.getCode().equals(conn.getDatabaseType())) {
+                        icon = CrudIcons.MYSQL_CONN;
+                    } else if (DatabaseTypeEnum.PG_SQL.getCode().equals(conn.getDatabaseType())) {
+                        icon = CrudIcons.PGSQL_CONN;
+                    } else if (DatabaseTypeEnum.ORACLE.getCode().equals(conn.getDatabaseType())) {
+                        icon = CrudIcons.ORACLE_CONN;
+                    }
+                    elements.add(new ListElement(icon, conn.getId(), conn.getName()));
                 }
-                myConnsList.addElement(new ListElement(icon, conn.getId(), conn.getName()));
-            }
+                return elements;
+            });
         }
     }
 
+    @Override
+    public void onStepLeaving() {
+        myListLoader.cancel();
+    }
+
+    @Override
+    public void disposeUIResources() {
+        Disposer.dispose(myListLoader);
+    }
+
     private void createUIComponents() {
         myScrollPane = new JBScrollPane();
         myConnLabel = new JBLabel();
+        myListLoader = new CrudListLoader(myScrollPane);
+        loadingPanel = myListLoader.getLoadingPanel();
     }
 }
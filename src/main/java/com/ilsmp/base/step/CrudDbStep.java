@@ -1,18 +1,21 @@
 package com.ilsmp.base.step;
 
 import javax.swing.*;
+import java.util.stream.Collectors;
 
 import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
 import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
-import com.github.mars05.crud.hub.common.service.DataSourceService;
 import com.ilsmp.base.dto.GenerateDTO;
 import com.ilsmp.base.icon.CrudIcons;
+import com.ilsmp.base.service.DataSourceMetaService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudList;
+import com.ilsmp.base.ui.CrudListLoader;
 import com.ilsmp.base.ui.ListElement;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
 
@@ -22,8 +25,21 @@ public class CrudDbStep extends ModuleWizardStep {
     private JLabel myDbLabel;
     private JLabel myPathLabel;
     private JScrollPane myScrollPane;
+    private JButton myRefreshButton;
+    private JPanel loadingPanel;
+    private CrudListLoader myListLoader;
 
-    private DataSourceService dataSourceService = CrudUtils.getBean(DataSourceService.class);
+    private final DataSourceMetaService dataSourceMetaService = CrudUtils.getBean(DataSourceMetaService.class);
+
+    public CrudDbStep() {
+        myRefreshButton.addActionListener(e -> {
+            DataSourceDTO dataSource = CrudSettings.currentGenerate().getDataSource();
+            if (dataSource != null) {
+                dataSourceMetaService.invalidate(dataSource.getId());
+                getList();
+            }
+        });
+    }
 
     @Override
     public JComponent getComponent() {
@@ -42,13 +58,23 @@ public class CrudDbStep extends ModuleWizardStep {
     private void getList() {
         DataSourceDTO dataSource = CrudSettings.currentGenerate().getDataSource();
         if (dataSource != null) {
-            myDbList.clearElement();
-            for (String name : dataSourceService.allDatabase(dataSource.getId())) {
-                myDbList.addElement(new ListElement(CrudIcons.DB, name));
-            }
+            Long id = dataSource.getId();
+            myListLoader.load(myDbList, () -> dataSourceMetaService.allDatabase(id).stream()
+                    .map(name -> new ListElement(CrudIcons.DB, name))
+                    .collect(Collectors.toList()));
         }
     }
 
+    @Override
+    public void onStepLeaving() {
+        myListLoader.cancel();
+    }
+
+    @Override
+    public void disposeUIResources() {
+        Disposer.dispose(myListLoader);
+    }
+
     @Override
     public void updateDataModel() {
 
@@ -71,5 +97,7 @@ public class CrudDbStep extends ModuleWizardStep {
     private void createUIComponents() {
         myScrollPane = new JBScrollPane();
         myDbLabel = new JBLabel();
+        myListLoader = new CrudListLoader(myScrollPane);
+        loadingPanel = myListLoader.getLoadingPanel();
     }
 }
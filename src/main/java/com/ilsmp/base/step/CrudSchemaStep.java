@@ -1,18 +1,21 @@
 package com.ilsmp.base.step;
 
 import javax.swing.*;
+import java.util.stream.Collectors;
 
 import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
 import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
-import com.github.mars05.crud.hub.common.service.DataSourceService;
 import com.ilsmp.base.dto.GenerateDTO;
 import com.ilsmp.base.icon.CrudIcons;
+import com.ilsmp.base.service.DataSourceMetaService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudList;
+import com.ilsmp.base.ui.CrudListLoader;
 import com.ilsmp.base.ui.ListElement;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
 
@@ -22,8 +25,21 @@ public class CrudSchemaStep extends ModuleWizardStep {
     private JLabel mySchemaLabel;
     private JLabel myPathLabel;
     private JScrollPane myScrollPane;
+    private JButton myRefreshButton;
+    private JPanel loadingPanel;
+    private CrudListLoader myListLoader;
 
-    private final DataSourceService dataSourceService = CrudUtils.getBean(DataSourceService.class);
+    private final DataSourceMetaService dataSourceMetaService = CrudUtils.getBean(DataSourceMetaService.class);
+
+    public CrudSchemaStep() {
+        myRefreshButton.addActionListener(e -> {
+            DataSourceDTO dataSource = CrudSettings.currentGenerate().getDataSource();
+            if (dataSource != null) {
+                dataSourceMetaService.invalidate(dataSource.getId());
+                getList();
+            }
+        });
+    }
 
     @Override
     public JComponent getComponent() {
@@ -43,13 +59,24 @@ public class CrudSchemaStep extends ModuleWizardStep {
     private void getList() {
         DataSourceDTO dataSource = CrudSettings.currentGenerate().getDataSource();
         if (dataSource != null) {
-            mySchemaList.clearElement();
-            for (String name : dataSourceService.allSchema(dataSource.getId(), dataSource.getDatabase())) {
-                mySchemaList.addElement(new ListElement(CrudIcons.SCHEMA, name));
-            }
+            Long id = dataSource.getId();
+            String database = dataSource.getDatabase();
+            myListLoader.load(mySchemaList, () -> dataSourceMetaService.allSchema(id, database).stream()
+                    .map(name -> new ListElement(CrudIcons.SCHEMA, name))
+                    .collect(Collectors.toList()));
         }
     }
 
+    @Override
+    public void onStepLeaving() {
+        myListLoader.cancel();
+    }
+
+    @Override
+    public void disposeUIResources() {
+        Disposer.dispose(myListLoader);
+    }
+
     @Override
     public void updateDataModel() {
 
@@ -72,5 +99,7 @@ public class CrudSchemaStep extends ModuleWizardStep {
     private void createUIComponents() {
         myScrollPane = new JBScrollPane();
         mySchemaLabel = new JBLabel();
+        myListLoader = new CrudListLoader(myScrollPane);
+        loadingPanel = myListLoader.getLoadingPanel();
     }
 }
@@ -7,14 +7,16 @@ import java.util.stream.Collectors;
 import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
 import com.github.mars05.crud.hub.common.exception.BizException;
 import com.github.mars05.crud.hub.common.model.Table;
-import com.github.mars05.crud.hub.common.service.DataSourceService;
 import com.ilsmp.base.icon.CrudIcons;
+import com.ilsmp.base.service.DataSourceMetaService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudList;
+import com.ilsmp.base.ui.CrudListLoader;
 import com.ilsmp.base.ui.ListElement;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
 
@@ -24,11 +26,21 @@ public class CrudTableStep extends ModuleWizardStep {
     private JLabel myTableLabel;
     private JLabel myPathLabel;
     private JScrollPane myScrollPane;
+    private JButton myRefreshButton;
+    private JPanel loadingPanel;
+    private CrudListLoader myListLoader;
 
-    private final DataSourceService dataSourceService = CrudUtils.getBean(DataSourceService.class);
+    private final DataSourceMetaService dataSourceMetaService = CrudUtils.getBean(DataSourceMetaService.class);
 
     public CrudTableStep() {
         this.myTableList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        myRefreshButton.addActionListener(e -> {
+            DataSourceDTO dataSource = CrudSettings.currentGenerate().getDataSource();
+            if (dataSource != null) {
+                dataSourceMetaService.invalidate(dataSource.getId());
+                getList();
+            }
+        });
     }
 
     @Override
@@ -48,19 +60,25 @@ public class CrudTableStep extends ModuleWizardStep {
             return;
         }
         if (dataSource.getDatabase() != null || dataSource.getSchema() != null) {
-            myTableList.clearElement();
-            List<String> strings;
-            if (dataSource.getSchema() != null) {
-                strings = dataSourceService.allTableName(dataSource.getId(), dataSource.getDatabase(), dataSource.getSchema());
-            } else {
-                strings = dataSourceService.allTableName(dataSource.getId(), dataSource.getDatabase());
-            }
-            for (String name : strings) {
-                myTableList.addElement(new ListElement(CrudIcons.TABLE, name));
-            }
+            Long id = dataSource.getId();
+            String database = dataSource.getDatabase();
+            String schema = dataSource.getSchema();
+            myListLoader.load(myTableList, () -> dataSourceMetaService.allTableName(id, database, schema).stream()
+                    .map(name -> new ListElement(CrudIcons.TABLE, name))
+                    .collect(Collectors.toList()));
         }
     }
 
+    @Override
+    public void onStepLeaving() {
+        myListLoader.cancel();
+    }
+
+    @Override
+    public void disposeUIResources() {
+        Disposer.dispose(myListLoader);
+    }
+
     @Override
     public boolean isStepVisible() {
         return 1 == CrudSettings.currentGenerate().getTableSource();
@@ -76,7 +94,7 @@ public class CrudTableStep extends ModuleWizardStep {
             List<String> tableNameList = elements.stream().map(ListElement::getName).collect(Collectors.toList());
 
             DataSourceDTO dataSource = CrudSettings.currentGenerate().getDataSource();
-            List<Table> tables = dataSourceService.getTables(dataSource.getId(), dataSource.getDatabase(), dataSource.getSchema(), tableNameList);
+            List<Table> tables = dataSourceMetaService.getTables(dataSource.getId(), dataSource.getDatabase(), dataSource.getSchema(), tableNameList);
 
             List<String> errorList = tableNameList.stream().filter(name -> !tables.stream().map(Table::getTableName)
                     .collect(Collectors.toList()).contains(name)
@@ -95,5 +113,7 @@ public class CrudTableStep extends ModuleWizardStep {
     private void createUIComponents() {
         myScrollPane = new JBScrollPane();
         myTableLabel = new JBLabel();
+        myListLoader = new CrudListLoader(myScrollPane);
+        loadingPanel = myListLoader.getLoadingPanel();
     }
 }
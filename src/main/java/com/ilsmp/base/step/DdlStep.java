@@ -1,12 +1,25 @@
 package com.ilsmp.base.step;
 
 import javax.swing.*;
+import java.awt.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
-import com.github.mars05.crud.hub.common.util.SqlUtils;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.ilsmp.base.icon.CrudIcons;
+import com.ilsmp.base.service.DdlImportService;
 import com.ilsmp.base.setting.CrudSettings;
+import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.ui.TextComponentAccessor;
+import com.intellij.openapi.ui.TextFieldWithBrowseButton;
 import com.intellij.ui.components.JBScrollPane;
 import org.apache.commons.lang3.StringUtils;
 
@@ -14,6 +27,49 @@ public class DdlStep extends ModuleWizardStep {
     private JTextArea ddlTextArea;
     private JPanel myMainPanel;
     private JScrollPane myScrollPane;
+    private TextFieldWithBrowseButton sqlFileButton;
+    private JComboBox<DatabaseTypeEnum> databaseTypeComboBox;
+
+    private final DdlImportService ddlImportService = CrudUtils.getBean(DdlImportService.class);
+
+    public DdlStep() {
+        sqlFileButton.addBrowseFolderListener("选择SQL文件", "", null,
+                FileChooserDescriptorFactory.createSingleFileDescriptor("sql"),
+                TextComponentAccessor.TEXT_FIELD_WHOLE_TEXT);
+        databaseTypeComboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                JLabel jbl = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                DatabaseTypeEnum typeEnum = (DatabaseTypeEnum) value;
+                if (typeEnum == null) {
+                    jbl.setIcon(null);
+                    jbl.setText("自动识别");
+                    return jbl;
+                }
+                switch (typeEnum) {
+                    case MYSQL:
+                        jbl.setIcon(CrudIcons.MYSQL_CONN);
+                        break;
+                    case PG_SQL:
+                        jbl.setIcon(CrudIcons.PGSQL_CONN);
+                        break;
+                    case ORACLE:
+                        jbl.setIcon(CrudIcons.ORACLE_CONN);
+                        break;
+                    default:
+                        jbl.setIcon(null);
+                }
+                jbl.setText(typeEnum.getDesc());
+                return jbl;
+            }
+        });
+        //null表示按DDL内容自动识别
+        databaseTypeComboBox.addItem(null);
+        databaseTypeComboBox.addItem(DatabaseTypeEnum.MYSQL);
+        databaseTypeComboBox.addItem(DatabaseTypeEnum.PG_SQL);
+        databaseTypeComboBox.addItem(DatabaseTypeEnum.ORACLE);
+        databaseTypeComboBox.setSelectedItem(null);
+    }
 
     @Override
     public JComponent getComponent() {
@@ -39,17 +95,45 @@ public class DdlStep extends ModuleWizardStep {
 
     @Override
     public boolean validate() throws ConfigurationException {
-        if (StringUtils.isBlank(ddlTextArea.getText())) {
-            throw new ConfigurationException("DDL不能为空", "校验失败");
+        String sqlFile = sqlFileButton.getText();
+        DatabaseTypeEnum databaseType = (DatabaseTypeEnum) databaseTypeComboBox.getSelectedItem();
+        List<Table> tables;
+        if (StringUtils.isNotBlank(sqlFile)) {
+            tables = importFile(Paths.get(sqlFile.trim()), databaseType);
+        } else {
+            if (StringUtils.isBlank(ddlTextArea.getText())) {
+                throw new ConfigurationException("DDL不能为空", "校验失败");
+            }
+            try {
+                tables = ddlImportService.importText(ddlTextArea.getText(), databaseType);
+            } catch (Exception exception) {
+                throw new ConfigurationException(exception.getMessage(), "DDL解析错误");
+            }
+        }
+        if (tables.isEmpty()) {
+            throw new ConfigurationException("未找到CREATE TABLE语句", "校验失败");
+        }
+        CrudSettings.currentGenerate().setTables(tables);
+        return super.validate();
+    }
+
+    /**
+     * 大文件在后台边读边解析, 可取消
+     */
+    private List<Table> importFile(Path file, DatabaseTypeEnum databaseType) throws ConfigurationException {
+        if (!Files.isRegularFile(file)) {
+            throw new ConfigurationException("SQL文件不存在", "校验失败");
         }
         try {
-            SqlUtils.getTablesByDdl(ddlTextArea.getText(), DatabaseTypeEnum.MYSQL);
+            return ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                    () -> ddlImportService.importFile(file, databaseType,
+                            ProgressManager.getInstance().getProgressIndicator()),
+                    "DDL解析中...", true, null);
+        } catch (ProcessCanceledException exception) {
+            throw new ConfigurationException("已取消导入", "DDL解析错误");
         } catch (Exception exception) {
             throw new ConfigurationException(exception.getMessage(), "DDL解析错误");
         }
-        CrudSettings.currentGenerate().setTables(SqlUtils.getTablesByDdl(ddlTextArea.getText(),
-                DatabaseTypeEnum.MYSQL));
-        return super.validate();
     }
 
     private void createUIComponents() {
@@ -1,23 +1,28 @@
 package com.ilsmp.base.step;
 
 import javax.swing.*;
+import java.util.stream.Collectors;
 
 import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.ilsmp.base.dto.ProjectTemplateRespDTO;
 import com.ilsmp.base.service.ProjectTemplateService;
 import com.ilsmp.base.setting.CrudSettings;
 import com.ilsmp.base.ui.CrudList;
+import com.ilsmp.base.ui.CrudListLoader;
 import com.ilsmp.base.ui.ListElement;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.components.JBScrollPane;
 
 public class MyTemplateStep extends ModuleWizardStep {
     private JPanel myMainPanel;
     private CrudList templateList;
     private JScrollPane myScrollPane;
+    private JPanel loadingPanel;
+    private CrudListLoader myListLoader;
 
     private ProjectTemplateDTO curr;
 
@@ -45,7 +50,7 @@ public class MyTemplateStep extends ModuleWizardStep {
             if (projectTemplateRespDTO == null) {
                 throw new Exception("请选择一个项目");
             }
-            curr = BeanUtils.convertBean(projectTemplateRespDTO, ProjectTemplateDTO.class);
+            curr = ConvertUtils.toProjectTemplateDTO(projectTemplateRespDTO);
             CrudSettings.currentGenerate().setProjectTemplate(curr);
         } catch (Exception e) {
             throw new ConfigurationException(e.getMessage(), "验证失败");
@@ -55,14 +60,23 @@ public class MyTemplateStep extends ModuleWizardStep {
 
     private void getList() {
         if (curr == null) {
-            templateList.clearElement();
-            for (ProjectTemplateRespDTO projectTemplateDTO : projectTemplateService.list()) {
-                templateList.addElement(new ListElement(null,
-                        projectTemplateDTO.getId(), projectTemplateDTO.getName() + "（" + projectTemplateDTO.getOrganizationName() + "）"));
-            }
+            myListLoader.load(templateList, () -> projectTemplateService.list().stream()
+                    .map(projectTemplateDTO -> new ListElement(null, projectTemplateDTO.getId(),
+                            projectTemplateDTO.getName() + "（" + projectTemplateDTO.getOrganizationName() + "）"))
+                    .collect(Collectors.toList()));
         }
     }
 
+    @Override
+    public void onStepLeaving() {
+        myListLoader.cancel();
+    }
+
+    @Override
+    public void disposeUIResources() {
+        Disposer.dispose(myListLoader);
+    }
+
     public ProjectTemplateRespDTO getSelectedProjectTemplate() {
         ListElement selectedElement = templateList.getSelectedElement();
         if (selectedElement == null) {
@@ -73,5 +87,7 @@ public class MyTemplateStep extends ModuleWizardStep {
 
     private void createUIComponents() {
         myScrollPane = new JBScrollPane();
+        myListLoader = new CrudListLoader(myScrollPane);
+        loadingPanel = myListLoader.getLoadingPanel();
     }
 }
@@ -11,10 +11,13 @@ import com.github.mars05.crud.hub.common.dto.DataSourceUpdateReqDTO;
 import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
 import com.github.mars05.crud.hub.common.exception.BizException;
 import com.github.mars05.crud.hub.common.service.DataSourceService;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.ilsmp.base.BaseBundle;
 import com.ilsmp.base.icon.CrudIcons;
+import com.ilsmp.base.service.DataSourceMetaService;
+import com.ilsmp.base.service.DataSourcePoolService;
+import com.ilsmp.base.service.SchemaSnapshotService;
 import com.ilsmp.base.step.CrudConnStep;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.Messages;
@@ -47,6 +50,8 @@ public class CrudEditConnDialog extends DialogWrapper {
     private CrudConnStep myCrudConnStep;
 
     private final DataSourceService dataSourceService = CrudUtils.getBean(DataSourceService.class);
+    private final DataSourceMetaService dataSourceMetaService = CrudUtils.getBean(DataSourceMetaService.class);
+    private final SchemaSnapshotService schemaSnapshotService = CrudUtils.getBean(SchemaSnapshotService.class);
     private Long dsId;
 
     public CrudEditConnDialog(CrudConnStep crudConnStep, Long dsId) {
@@ -219,9 +224,12 @@ public class CrudEditConnDialog extends DialogWrapper {
         if (dsId == null) {
             dataSourceService.create(reqDTO);
         } else {
-            DataSourceUpdateReqDTO updateReqDTO = BeanUtils.convertBean(reqDTO, DataSourceUpdateReqDTO.class);
+            DataSourceUpdateReqDTO updateReqDTO = ConvertUtils.toDataSourceUpdateReqDTO(reqDTO);
             updateReqDTO.setId(dsId);
             dataSourceService.update(updateReqDTO);
+            dataSourceMetaService.invalidate(dsId);
+            DataSourcePoolService.getInstance().invalidate(dsId);
+            schemaSnapshotService.delete(dsId);
         }
 
         myCrudConnStep.getList();
@@ -44,6 +44,10 @@ public class CrudList extends JBList<ListElement> {
         model.add(model.getSize(), element);
     }
 
+    public void addElements(List<ListElement> elements) {
+        model.addAll(elements);
+    }
+
     public void clearElement() {
         model.clear();
     }
@@ -0,0 +1,103 @@
+package com.ilsmp.base.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ilsmp.base.service.BackgroundExecutorService;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBLoadingPanel;
+
+/**
+ * 向导列表异步加载: 后台线程查询, 查询期间显示加载面板, 结果分批回到EDT填充.
+ * 重新加载或离开步骤时取消上一次加载, 过期的结果直接丢弃
+ */
+public class CrudListLoader implements Disposable {
+    private static final int BATCH_SIZE = 200;
+
+    private final JComponent myContent;
+    private final JBLoadingPanel myLoadingPanel;
+    private final AtomicInteger myGeneration = new AtomicInteger();
+    private volatile Future<?> myFuture;
+
+    public CrudListLoader(JComponent content) {
+        myContent = content;
+        myLoadingPanel = new JBLoadingPanel(new BorderLayout(), this);
+        myLoadingPanel.setBorder(content.getBorder());
+        myLoadingPanel.setVisible(false);
+    }
+
+    public JBLoadingPanel getLoadingPanel() {
+        return myLoadingPanel;
+    }
+
+    /**
+     * 需在EDT调用
+     */
+    public void load(CrudList list, Callable<List<ListElement>> loader) {
+        cancel();
+        int generation = myGeneration.get();
+        ModalityState modalityState = ModalityState.current();
+        list.clearElement();
+        list.getEmptyText().setText("暂无数据");
+        startLoading();
+        myFuture = BackgroundExecutorService.getInstance().io().submit(() -> {
+            List<ListElement> elements;
+            try {
+                elements = loader.call();
+            } catch (Exception e) {
+                invokeLater(generation, modalityState, () -> {
+                    stopLoading();
+                    list.getEmptyText().setText(String.valueOf(e.getMessage()), SimpleTextAttributes.ERROR_ATTRIBUTES);
+                });
+                return;
+            }
+            invokeLater(generation, modalityState, this::stopLoading);
+            for (int i = 0; i < elements.size(); i += BATCH_SIZE) {
+                List<ListElement> batch = elements.subList(i, Math.min(i + BATCH_SIZE, elements.size()));
+                invokeLater(generation, modalityState, () -> list.addElements(batch));
+            }
+        });
+    }
+
+    public void cancel() {
+        myGeneration.incrementAndGet();
+        Future<?> future = myFuture;
+        if (future != null) {
+            future.cancel(true);
+            myFuture = null;
+        }
+        stopLoading();
+    }
+
+    @Override
+    public void dispose() {
+        cancel();
+    }
+
+    private void invokeLater(int generation, ModalityState modalityState, Runnable runnable) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (myGeneration.get() == generation) {
+                runnable.run();
+            }
+        }, modalityState);
+    }
+
+    private void startLoading() {
+        myContent.setVisible(false);
+        myLoadingPanel.setVisible(true);
+        myLoadingPanel.startLoading();
+    }
+
+    private void stopLoading() {
+        myLoadingPanel.stopLoading();
+        myLoadingPanel.setVisible(false);
+        myContent.setVisible(true);
+    }
+}
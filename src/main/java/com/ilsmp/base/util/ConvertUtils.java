@@ -0,0 +1,298 @@
+package com.ilsmp.base.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.github.mars05.crud.hub.common.dto.CodeGenerateReqDTO;
+import com.github.mars05.crud.hub.common.dto.DataSourceCreateReqDTO;
+import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
+import com.github.mars05.crud.hub.common.dto.DataSourceRespDTO;
+import com.github.mars05.crud.hub.common.dto.DataSourceUpdateReqDTO;
+import com.github.mars05.crud.hub.common.dto.ProjectGenerateReqDTO;
+import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
+import com.github.mars05.crud.hub.common.model.Column;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.ilsmp.base.dao.model.DataSourceDO;
+import com.ilsmp.base.dao.model.ProjectTemplateDO;
+import com.ilsmp.base.dto.GenerateDTO;
+import com.ilsmp.base.dto.ProjectTemplateRespDTO;
+
+/**
+ * 插件内DTO/DO转换, 逐字段赋值, 替代BeanUtils(ModelMapper)的反射映射.
+ * 只复制两边都有的同名字段, null也会复制; 嵌套对象共用, 列表复制一层.
+ * 字段是手写列出的, DTO/DO新增字段时要同步修改这里的转换方法
+ */
+public class ConvertUtils {
+
+    public static <S, T> List<T> convertList(List<S> sourceList, Function<S, T> converter) {
+        if (sourceList == null) {
+            return null;
+        }
+        List<T> list = new ArrayList<>(sourceList.size());
+        for (S source : sourceList) {
+            list.add(converter.apply(source));
+        }
+        return list;
+    }
+
+    public static DataSourceDTO toDataSourceDTO(DataSourceDO source) {
+        if (source == null) {
+            return null;
+        }
+        DataSourceDTO target = new DataSourceDTO();
+        target.setId(source.getId());
+        target.setDatabaseType(source.getDatabaseType());
+        target.setName(source.getName());
+        target.setHost(source.getHost());
+        target.setPort(source.getPort());
+        target.setUsername(source.getUsername());
+        target.setPassword(source.getPassword());
+        target.setInitDb(source.getInitDb());
+        target.setSid(source.getSid());
+        return target;
+    }
+
+    public static DataSourceDTO toDataSourceDTO(DataSourceRespDTO source) {
+        if (source == null) {
+            return null;
+        }
+        DataSourceDTO target = new DataSourceDTO();
+        target.setId(source.getId());
+        target.setDatabaseType(source.getDatabaseType());
+        target.setName(source.getName());
+        target.setHost(source.getHost());
+        target.setPort(source.getPort());
+        target.setUsername(source.getUsername());
+        target.setPassword(source.getPassword());
+        target.setInitDb(source.getInitDb());
+        target.setSid(source.getSid());
+        return target;
+    }
+
+    public static DataSourceDO toDataSourceDO(DataSourceDTO source) {
+        if (source == null) {
+            return null;
+        }
+        DataSourceDO target = new DataSourceDO();
+        target.setId(source.getId());
+        target.setDatabaseType(source.getDatabaseType());
+        target.setName(source.getName());
+        target.setHost(source.getHost());
+        target.setPort(source.getPort());
+        target.setUsername(source.getUsername());
+        target.setPassword(source.getPassword());
+        target.setInitDb(source.getInitDb());
+        target.setSid(source.getSid());
+        return target;
+    }
+
+    public static DataSourceDO copy(DataSourceDO source) {
+        if (source == null) {
+            return null;
+        }
+        DataSourceDO target = new DataSourceDO();
+        copyProperties(source, target);
+        return target;
+    }
+
+    public static void copyProperties(DataSourceDO source, DataSourceDO target) {
+        target.setId(source.getId());
+        target.setDatabaseType(source.getDatabaseType());
+        target.setName(source.getName());
+        target.setHost(source.getHost());
+        target.setPort(source.getPort());
+        target.setUsername(source.getUsername());
+        target.setPassword(source.getPassword());
+        target.setInitDb(source.getInitDb());
+        target.setSid(source.getSid());
+    }
+
+    public static DataSourceUpdateReqDTO toDataSourceUpdateReqDTO(DataSourceCreateReqDTO source) {
+        if (source == null) {
+            return null;
+        }
+        DataSourceUpdateReqDTO target = new DataSourceUpdateReqDTO();
+        target.setDatabaseType(source.getDatabaseType());
+        target.setName(source.getName());
+        target.setHost(source.getHost());
+        target.setPort(source.getPort());
+        target.setUsername(source.getUsername());
+        target.setPassword(source.getPassword());
+        target.setInitDb(source.getInitDb());
+        target.setSid(source.getSid());
+        return target;
+    }
+
+    public static ProjectTemplateDO toProjectTemplateDO(ProjectTemplateDTO source) {
+        if (source == null) {
+            return null;
+        }
+        ProjectTemplateDO target = new ProjectTemplateDO();
+        target.setId(source.getId());
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setProjectType(source.getProjectType());
+        target.setOrganizationId(source.getOrganizationId());
+        target.setOrganizationName(source.getOrganizationName());
+        target.setAccessToken(source.getAccessToken());
+        target.setPublicFlag(source.getPublicFlag());
+        target.setCreateTime(source.getCreateTime());
+        target.setUpdateTime(source.getUpdateTime());
+        target.setCreateId(source.getCreateId());
+        target.setCreateName(source.getCreateName());
+        target.setUpdateId(source.getUpdateId());
+        target.setUpdateName(source.getUpdateName());
+        return target;
+    }
+
+    public static ProjectTemplateDO copy(ProjectTemplateDO source) {
+        if (source == null) {
+            return null;
+        }
+        ProjectTemplateDO target = new ProjectTemplateDO();
+        copyProperties(source, target);
+        return target;
+    }
+
+    public static void copyProperties(ProjectTemplateDO source, ProjectTemplateDO target) {
+        target.setId(source.getId());
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setProjectType(source.getProjectType());
+        target.setFileTemplates(source.getFileTemplates());
+        target.setFileTemplatesHash(source.getFileTemplatesHash());
+        target.setOrganizationId(source.getOrganizationId());
+        target.setOrganizationName(source.getOrganizationName());
+        target.setAccessToken(source.getAccessToken());
+        target.setPublicFlag(source.getPublicFlag());
+        target.setCreateTime(source.getCreateTime());
+        target.setUpdateTime(source.getUpdateTime());
+        target.setCreateId(source.getCreateId());
+        target.setCreateName(source.getCreateName());
+        target.setUpdateId(source.getUpdateId());
+        target.setUpdateName(source.getUpdateName());
+    }
+
+    /**
+     * fileTemplateList不在DO中, 由调用方设置
+     */
+    public static ProjectTemplateRespDTO toProjectTemplateRespDTO(ProjectTemplateDO source) {
+        if (source == null) {
+            return null;
+        }
+        ProjectTemplateRespDTO target = new ProjectTemplateRespDTO();
+        target.setId(source.getId());
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setProjectType(source.getProjectType());
+        target.setOrganizationId(source.getOrganizationId());
+        target.setOrganizationName(source.getOrganizationName());
+        target.setAccessToken(source.getAccessToken());
+        target.setPublicFlag(source.getPublicFlag());
+        target.setCreateTime(source.getCreateTime());
+        target.setUpdateTime(source.getUpdateTime());
+        target.setCreateId(source.getCreateId());
+        target.setCreateName(source.getCreateName());
+        target.setUpdateId(source.getUpdateId());
+        target.setUpdateName(source.getUpdateName());
+        return target;
+    }
+
+    public static ProjectTemplateRespDTO copy(ProjectTemplateRespDTO source) {
+        if (source == null) {
+            return null;
+        }
+        ProjectTemplateRespDTO target = new ProjectTemplateRespDTO();
+        target.setId(source.getId());
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setProjectType(source.getProjectType());
+        target.setFileTemplateList(source.getFileTemplateList());
+        target.setOrganizationId(source.getOrganizationId());
+        target.setOrganizationName(source.getOrganizationName());
+        target.setAccessToken(source.getAccessToken());
+        target.setPublicFlag(source.getPublicFlag());
+        target.setCreateTime(source.getCreateTime());
+        target.setUpdateTime(source.getUpdateTime());
+        target.setCreateId(source.getCreateId());
+        target.setCreateName(source.getCreateName());
+        target.setUpdateId(source.getUpdateId());
+        target.setUpdateName(source.getUpdateName());
+        return target;
+    }
+
+    public static ProjectTemplateDTO toProjectTemplateDTO(ProjectTemplateRespDTO source) {
+        if (source == null) {
+            return null;
+        }
+        ProjectTemplateDTO target = new ProjectTemplateDTO();
+        target.setId(source.getId());
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setProjectType(source.getProjectType());
+        target.setFileTemplateList(copyList(source.getFileTemplateList()));
+        target.setOrganizationId(source.getOrganizationId());
+        target.setOrganizationName(source.getOrganizationName());
+        target.setAccessToken(source.getAccessToken());
+        target.setPublicFlag(source.getPublicFlag());
+        target.setCreateTime(source.getCreateTime());
+        target.setUpdateTime(source.getUpdateTime());
+        target.setCreateId(source.getCreateId());
+        target.setCreateName(source.getCreateName());
+        target.setUpdateId(source.getUpdateId());
+        target.setUpdateName(source.getUpdateName());
+        return target;
+    }
+
+    public static CodeGenerateReqDTO toCodeGenerateReqDTO(GenerateDTO source) {
+        if (source == null) {
+            return null;
+        }
+        return new CodeGenerateReqDTO()
+                .setProjectTemplate(source.getProjectTemplate())
+                .setBasePackage(source.getBasePackage())
+                .setNameList(copyList(source.getNameList()))
+                .setTables(copyList(source.getTables()));
+    }
+
+    public static ProjectGenerateReqDTO toProjectGenerateReqDTO(GenerateDTO source) {
+        if (source == null) {
+            return null;
+        }
+        return new ProjectGenerateReqDTO()
+                .setProjectTemplate(source.getProjectTemplate())
+                .setProjectName(source.getProjectName())
+                .setBasePackage(source.getBasePackage())
+                .setGroupId(source.getGroupId())
+                .setArtifactId(source.getArtifactId())
+                .setVersion(source.getVersion())
+                .setDataSource(source.getDataSource())
+                .setTables(copyList(source.getTables()));
+    }
+
+    /**
+     * 表结构深拷贝, 缓存中的Table不直接交给调用方修改
+     */
+    public static Table copy(Table source) {
+        if (source == null) {
+            return null;
+        }
+        Table target = new Table();
+        target.setTableName(source.getTableName());
+        target.setRemarks(source.getRemarks());
+        target.setColumns(convertList(source.getColumns(), column -> {
+            Column copy = new Column();
+            copy.setColumnName(column.getColumnName());
+            copy.setRemarks(column.getRemarks());
+            copy.setPrimaryKey(column.getPrimaryKey());
+            copy.setType(column.getType());
+            return copy;
+        }));
+        return target;
+    }
+
+    private static <T> List<T> copyList(List<T> list) {
+        return list == null ? null : new ArrayList<>(list);
+    }
+}
@@ -17,7 +17,6 @@ package com.ilsmp.base.util;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,24 +25,24 @@ import com.github.mars05.crud.hub.common.dto.DataSourceDTO;
 import com.github.mars05.crud.hub.common.repository.DataSourceRepository;
 import com.github.mars05.crud.hub.common.service.DataSourceService;
 import com.github.mars05.crud.hub.common.service.ProjectService;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.ilsmp.base.dao.mapper.DataSourceMapper;
 import com.ilsmp.base.dao.mapper.ProjectTemplateMapper;
-import com.ilsmp.base.dao.model.DataSourceDO;
+import com.ilsmp.base.service.CodeGenerateService;
+import com.ilsmp.base.service.CodeOptimizeService;
+import com.ilsmp.base.service.DataSourceMetaService;
+import com.ilsmp.base.service.DdlImportService;
 import com.ilsmp.base.service.ProjectTemplateService;
+import com.ilsmp.base.service.SchemaSnapshotService;
+import com.ilsmp.base.service.TemplateImportService;
+import com.ilsmp.base.service.TemplateStoreService;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.progress.Task;
-import com.intellij.openapi.project.DumbAwareRunnable;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.startup.StartupManager;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiManager;
-import com.intellij.psi.codeStyle.CodeStyleManager;
-import com.intellij.psi.codeStyle.JavaCodeStyleManager;
 import com.intellij.util.DisposeAwareRunnable;
 
 public class CrudUtils {
@@ -59,22 +58,22 @@ public class CrudUtils {
 
             @Override
             public List<DataSourceDTO> selectList() {
-                return BeanUtils.convertList(dataSourceMapper.selectList(), DataSourceDTO.class);
+                return ConvertUtils.convertList(dataSourceMapper.selectViewList(), ConvertUtils::toDataSourceDTO);
             }
 
             @Override
             public void insert(DataSourceDTO dataSourceDTO) {
-                dataSourceMapper.insert(BeanUtils.convertBean(dataSourceDTO, DataSourceDO.class));
+                dataSourceMapper.insert(ConvertUtils.toDataSourceDO(dataSourceDTO));
             }
 
             @Override
             public void updateById(DataSourceDTO dataSourceDTO) {
-                dataSourceMapper.updateById(BeanUtils.convertBean(dataSourceDTO, DataSourceDO.class));
+                dataSourceMapper.updateById(ConvertUtils.toDataSourceDO(dataSourceDTO));
             }
 
             @Override
             public DataSourceDTO selectById(Long id) {
-                return BeanUtils.convertBean(dataSourceMapper.selectById(id), DataSourceDTO.class);
+                return ConvertUtils.toDataSourceDTO(dataSourceMapper.selectViewById(id));
             }
 
             @Override
@@ -85,8 +84,14 @@ public class CrudUtils {
 
 
         BEAN_MAP.put(DataSourceService.class, new DataSourceService(getBean(DataSourceRepository.class)));
+        BEAN_MAP.put(SchemaSnapshotService.class, new SchemaSnapshotService());
+        BEAN_MAP.put(DataSourceMetaService.class, new DataSourceMetaService());
         BEAN_MAP.put(ProjectService.class, new ProjectService());
+        BEAN_MAP.put(TemplateStoreService.class, new TemplateStoreService());
         BEAN_MAP.put(ProjectTemplateService.class, new ProjectTemplateService());
+        BEAN_MAP.put(TemplateImportService.class, new TemplateImportService());
+        BEAN_MAP.put(CodeGenerateService.class, new CodeGenerateService());
+        BEAN_MAP.put(DdlImportService.class, new DdlImportService());
 
     }
 
@@ -155,28 +160,12 @@ public class CrudUtils {
         }
     }
 
-    private static List<VirtualFile> virtualFiles = new ArrayList<>();
-
-    public static void addWaitOptimizeFile(VirtualFile virtualFile) {
-        virtualFiles.add(virtualFile);
+    public static void addWaitOptimizeFile(Project project, VirtualFile virtualFile) {
+        CodeOptimizeService.getInstance(project).add(virtualFile);
     }
 
     public static void doOptimize(Project project) {
-        DumbService.getInstance(project).runWhenSmart((DumbAwareRunnable) () -> WriteCommandAction.writeCommandAction(project).run(() -> {
-            for (VirtualFile virtualFile : virtualFiles) {
-                try {
-                    PsiJavaFile javaFile = (PsiJavaFile) PsiManager.getInstance(project).findFile(virtualFile);
-                    if (javaFile != null) {
-                        CodeStyleManager.getInstance(project).reformat(javaFile);
-                        JavaCodeStyleManager.getInstance(project).optimizeImports(javaFile);
-                        JavaCodeStyleManager.getInstance(project).shortenClassReferences(javaFile);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-            virtualFiles.clear();
-        }));
+        CodeOptimizeService.getInstance(project).schedule();
     }
 
     public static void runInBackground(Task.Backgroundable task) {
@@ -0,0 +1,264 @@
+package com.ilsmp.base.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+
+/**
+ * 逐条读取SQL脚本中的CREATE TABLE和COMMENT ON语句, 内存中只保留当前语句.
+ * 识别引号、注释和mysqldump的DELIMITER, 其他语句读到结尾即丢弃.
+ * #注释、反引号和字符串中的反斜杠转义只对MySQL生效, PG只在E'...'中按反斜杠转义
+ */
+public class DdlStatementReader implements Closeable {
+    private static final String[] PREFIXES = {"CREATE TABLE ", "CREATE TEMPORARY TABLE ", "COMMENT ON "};
+    private static final int MAX_PREFIX_LENGTH = 23;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final boolean mysql;
+    private final boolean postgres;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long readChars;
+    private String delimiter = ";";
+    private boolean lineStart = true;
+    private int last = -1;
+
+    public DdlStatementReader(Reader reader, DatabaseTypeEnum databaseType) {
+        this.reader = reader;
+        this.mysql = databaseType == null || databaseType == DatabaseTypeEnum.MYSQL;
+        this.postgres = databaseType == DatabaseTypeEnum.PG_SQL;
+    }
+
+    /**
+     * 下一条CREATE TABLE或COMMENT ON语句(不含分隔符), 读完返回null
+     */
+    public String next() throws IOException {
+        StringBuilder statement = new StringBuilder();
+        //语句开头归一化后的前缀, 用于判断语句类型
+        StringBuilder head = new StringBuilder();
+        boolean skip = false;
+        boolean headSpace = false;
+        int c;
+        while ((c = read()) >= 0) {
+            int previous = last;
+            last = c;
+            boolean wasLineStart = lineStart;
+            lineStart = c == '\n';
+            if (wasLineStart && statement.length() == 0 && (c == 'D' || c == 'd') && readDelimiter((char) c)) {
+                lineStart = true;
+                continue;
+            }
+            if (c == '-' && peek() == '-') {
+                skipLine();
+                continue;
+            }
+            if (c == '#' && mysql) {
+                skipLine();
+                continue;
+            }
+            if (c == '/' && peek() == '*') {
+                read();
+                skipBlockComment();
+                if (statement.length() > 0 && !skip) {
+                    statement.append(' ');
+                }
+                continue;
+            }
+            if (c == delimiter.charAt(0) && matchDelimiter()) {
+                if (!skip && statement.length() > 0 && isAccepted(head)) {
+                    return statement.toString();
+                }
+                statement.setLength(0);
+                head.setLength(0);
+                skip = false;
+                headSpace = false;
+                continue;
+            }
+            if (statement.length() == 0 && Character.isWhitespace(c)) {
+                continue;
+            }
+            if (!skip && head.length() < MAX_PREFIX_LENGTH) {
+                if (Character.isWhitespace(c)) {
+                    headSpace = true;
+                } else {
+                    if (headSpace && head.length() > 0) {
+                        head.append(' ');
+                    }
+                    headSpace = false;
+                    head.append(Character.toUpperCase((char) c));
+                }
+                if (!isAcceptedPrefix(head)) {
+                    skip = true;
+                }
+            }
+            if (!skip) {
+                statement.append((char) c);
+            } else if (statement.length() == 0) {
+                //跳过的语句不保存内容, 只占位表示语句未结束
+                statement.append(' ');
+            }
+            if (c == '\'' || c == '"' || (c == '`' && mysql)) {
+                boolean escape = (mysql && c != '`') || (postgres && c == '\'' && (previous == 'E' || previous == 'e'));
+                readQuoted((char) c, escape, skip ? null : statement);
+            }
+        }
+        if (!skip && statement.length() > 0 && isAccepted(head)) {
+            return statement.toString();
+        }
+        return null;
+    }
+
+    /**
+     * 已读取的字符数, 用于估算进度
+     */
+    public long getReadChars() {
+        return readChars;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean isAccepted(StringBuilder head) {
+        String text = head + " ";
+        for (String prefix : PREFIXES) {
+            if (text.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAcceptedPrefix(StringBuilder head) {
+        String text = head.toString();
+        for (String prefix : PREFIXES) {
+            if (prefix.startsWith(text) || text.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param escape 是否按反斜杠转义
+     */
+    private void readQuoted(char quote, boolean escape, StringBuilder statement) throws IOException {
+        int c;
+        while ((c = read()) >= 0) {
+            if (statement != null) {
+                statement.append((char) c);
+            }
+            if (c == '\\' && escape) {
+                int escaped = read();
+                if (escaped >= 0 && statement != null) {
+                    statement.append((char) escaped);
+                }
+            } else if (c == quote) {
+                //连续两个引号是转义
+                if (peek() == quote) {
+                    read();
+                    if (statement != null) {
+                        statement.append(quote);
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 行首的"DELIMITER xx", 先预读判断, 是才消费这一行
+     */
+    private boolean readDelimiter(char first) throws IOException {
+        StringBuilder line = new StringBuilder().append(first);
+        int c;
+        while (line.length() < 64 && (c = peekAt(line.length() - 1)) >= 0 && c != '\n') {
+            line.append((char) c);
+        }
+        String text = line.toString().trim();
+        if (text.length() <= 10 || !text.substring(0, 10).equalsIgnoreCase("DELIMITER ")) {
+            return false;
+        }
+        String newDelimiter = text.substring(10).trim();
+        if (newDelimiter.isEmpty()) {
+            return false;
+        }
+        delimiter = newDelimiter;
+        skipLine();
+        return true;
+    }
+
+    private boolean matchDelimiter() throws IOException {
+        for (int i = 1; i < delimiter.length(); i++) {
+            if (peekAt(i - 1) != delimiter.charAt(i)) {
+                return false;
+            }
+        }
+        for (int i = 1; i < delimiter.length(); i++) {
+            read();
+        }
+        return true;
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != '\n') {
+            //跳过
+        }
+        lineStart = true;
+    }
+
+    private void skipBlockComment() throws IOException {
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '*' && peek() == '/') {
+                read();
+                return;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill(1)) {
+            return -1;
+        }
+        readChars++;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        return peekAt(0);
+    }
+
+    private int peekAt(int offset) throws IOException {
+        if (position + offset >= limit && !fill(offset + 1)) {
+            return -1;
+        }
+        return buffer[position + offset];
+    }
+
+    /**
+     * 保证缓冲区中至少有count个未读字符
+     */
+    private boolean fill(int count) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < count) {
+            int n = reader.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                return false;
+            }
+            limit += n;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ilsmp.base.util;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.model.Table;
+
+/**
+ * CREATE TABLE语句解析结果缓存, 以方言+语句的SHA-256为key, LRU淘汰.
+ * 重复导入大体不变的DDL文件时只解析改动过的语句, 返回的都是副本
+ */
+public class DdlTableCache {
+    private static final int MAX_ENTRIES = 4096;
+
+    private static final LinkedHashMap<String, List<Table>> CACHE = new LinkedHashMap<String, List<Table>>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Table>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public static List<Table> getTables(String ddl, DatabaseTypeEnum databaseType) {
+        String key = databaseType.getCode() + ":" + HashUtils.sha256(ddl);
+        List<Table> tables;
+        synchronized (CACHE) {
+            tables = CACHE.get(key);
+        }
+        if (tables == null) {
+            //解析放在锁外, 解析失败不缓存
+            tables = DdlUtils.getTables(ddl, databaseType);
+            synchronized (CACHE) {
+                CACHE.put(key, tables);
+            }
+        }
+        return ConvertUtils.convertList(tables, ConvertUtils::copy);
+    }
+
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.ilsmp.base.util;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.SQLPropertyExpr;
+import com.alibaba.druid.sql.ast.expr.SQLTextLiteralExpr;
+import com.alibaba.druid.sql.ast.statement.SQLColumnDefinition;
+import com.alibaba.druid.sql.ast.statement.SQLCommentStatement;
+import com.alibaba.druid.sql.ast.statement.SQLCreateTableStatement;
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.github.mars05.crud.hub.common.model.Column;
+import com.github.mars05.crud.hub.common.model.Table;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 按数据库方言解析DDL.
+ * 与SqlUtils.getTablesByDdl结果一致, 另外支持没有注释的列、PostgreSQL/Oracle的COMMENT ON和双引号标识符
+ */
+public class DdlUtils {
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    private static final String[] MYSQL_HINTS = {"`", "ENGINE=", "AUTO_INCREMENT", "CHARSET=", "UNSIGNED", "TINYINT",
+            "DATETIME", "LONGTEXT", "MYSQL"};
+    private static final String[] PG_SQL_HINTS = {"CHARACTER VARYING", "WITHOUT TIME ZONE", "SERIAL", "BYTEA",
+            "::", "OWNER TO", "PG_CATALOG", "POSTGRESQL", "TIMESTAMPTZ", "JSONB"};
+    private static final String[] ORACLE_HINTS = {"VARCHAR2", "NUMBER(", "CLOB", "TABLESPACE", "SYSDATE",
+            "NOCOMPRESS", "LOGGING", "PCTFREE", "ORACLE"};
+
+    /**
+     * 根据DDL开头部分的特征词识别方言, 识别不出时按MySQL处理
+     */
+    public static DatabaseTypeEnum detect(String ddl) {
+        String sample = StringUtils.left(ddl, SAMPLE_SIZE).toUpperCase(Locale.ROOT);
+        int mysql = count(sample, MYSQL_HINTS);
+        int pgSql = count(sample, PG_SQL_HINTS);
+        int oracle = count(sample, ORACLE_HINTS);
+        if (pgSql > mysql && pgSql >= oracle) {
+            return DatabaseTypeEnum.PG_SQL;
+        }
+        if (oracle > mysql && oracle > pgSql) {
+            return DatabaseTypeEnum.ORACLE;
+        }
+        return DatabaseTypeEnum.MYSQL;
+    }
+
+    /**
+     * 解析CREATE TABLE语句, COMMENT ON语句返回空列表, 由applyComment处理
+     */
+    public static List<Table> getTables(String ddl, DatabaseTypeEnum databaseType) {
+        List<Table> tables = new ArrayList<>();
+        for (SQLStatement statement : parseStatements(ddl, databaseType)) {
+            if (statement instanceof SQLCreateTableStatement) {
+                tables.add(toTable((SQLCreateTableStatement) statement));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * COMMENT ON TABLE/COLUMN, tableMap的key为小写表名
+     */
+    public static void applyComment(String ddl, DatabaseTypeEnum databaseType, Map<String, Table> tableMap) {
+        for (SQLStatement statement : parseStatements(ddl, databaseType)) {
+            if (!(statement instanceof SQLCommentStatement)) {
+                continue;
+            }
+            SQLCommentStatement comment = (SQLCommentStatement) statement;
+            SQLExpr target = comment.getOn().getExpr();
+            String remarks = getText(comment.getComment());
+            if (comment.getType() == SQLCommentStatement.Type.TABLE) {
+                Table table = tableMap.get(lowerName(getSimpleName(target)));
+                if (table != null) {
+                    table.setRemarks(remarks);
+                }
+            } else if (comment.getType() == SQLCommentStatement.Type.COLUMN && target instanceof SQLPropertyExpr) {
+                SQLPropertyExpr property = (SQLPropertyExpr) target;
+                Table table = tableMap.get(lowerName(getSimpleName(property.getOwner())));
+                if (table == null) {
+                    continue;
+                }
+                String columnName = SQLUtils.normalize(property.getName());
+                table.getColumns().stream()
+                        .filter(column -> column.getColumnName().equalsIgnoreCase(columnName))
+                        .forEach(column -> column.setRemarks(remarks));
+            }
+        }
+    }
+
+    public static String lowerName(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<SQLStatement> parseStatements(String ddl, DatabaseTypeEnum databaseType) {
+        try {
+            return SQLUtils.parseStatements(ddl, getDbType(databaseType));
+        } catch (Exception e) {
+            throw new BizException("DDL解析错误: " + e.getMessage(), e);
+        }
+    }
+
+    private static DbType getDbType(DatabaseTypeEnum databaseType) {
+        switch (databaseType) {
+            case MYSQL:
+                return DbType.mysql;
+            case PG_SQL:
+                return DbType.postgresql;
+            case ORACLE:
+                return DbType.oracle;
+            default:
+                throw new BizException("暂不支持该数据库类型");
+        }
+    }
+
+    private static Table toTable(SQLCreateTableStatement createTable) {
+        Table table = new Table();
+        table.setTableName(SQLUtils.normalize(createTable.getName().getSimpleName()));
+        table.setRemarks(getText(createTable.getComment()));
+        table.setColumns(new ArrayList<>());
+        for (SQLColumnDefinition definition : createTable.getColumnDefinitions()) {
+            Column column = new Column();
+            column.setColumnName(SQLUtils.normalize(definition.getColumnName()));
+            column.setRemarks(getText(definition.getComment()));
+            column.setPrimaryKey(definition.isPrimaryKey() || createTable.isPrimaryColumn(definition.getColumnName()));
+            column.setType(getJdbcType(definition));
+            table.getColumns().add(column);
+        }
+        return table;
+    }
+
+    /**
+     * Druid不认识的PostgreSQL类型别名按名称补充
+     */
+    private static int getJdbcType(SQLColumnDefinition definition) {
+        int jdbcType = definition.getDataType().jdbcType();
+        if (jdbcType != Types.NULL) {
+            return jdbcType;
+        }
+        switch (definition.getDataType().getName().toLowerCase(Locale.ROOT)) {
+            case "character varying":
+            case "citext":
+                return Types.VARCHAR;
+            case "character":
+            case "bpchar":
+                return Types.CHAR;
+            case "serial":
+            case "int4":
+                return Types.INTEGER;
+            case "bigserial":
+            case "int8":
+                return Types.BIGINT;
+            case "smallserial":
+            case "int2":
+                return Types.SMALLINT;
+            case "double precision":
+            case "float8":
+                return Types.DOUBLE;
+            case "float4":
+                return Types.REAL;
+            case "bool":
+                return Types.BOOLEAN;
+            case "bytea":
+                return Types.BINARY;
+            case "timestamptz":
+                return Types.TIMESTAMP;
+            default:
+                return Types.OTHER;
+        }
+    }
+
+    private static String getSimpleName(SQLExpr expr) {
+        if (expr instanceof SQLPropertyExpr) {
+            return SQLUtils.normalize(((SQLPropertyExpr) expr).getName());
+        }
+        return expr == null ? null : SQLUtils.normalize(expr.toString());
+    }
+
+    private static String getText(SQLExpr expr) {
+        return expr instanceof SQLTextLiteralExpr ? ((SQLTextLiteralExpr) expr).getText() : null;
+    }
+
+    private static int count(String sample, String[] hints) {
+        int count = 0;
+        for (String hint : hints) {
+            if (sample.contains(hint)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,230 @@
+package com.ilsmp.base.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.mars05.crud.hub.common.model.Column;
+import com.github.mars05.crud.hub.common.model.Table;
+import com.github.mars05.crud.hub.common.util.JavaTypeUtils;
+import com.google.common.base.CaseFormat;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiAnnotationMemberValue;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiImportStatement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiModifierListOwner;
+import com.intellij.psi.PsiTypeElement;
+import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.javadoc.PsiDocToken;
+
+/**
+ * 实体类转Table, 注解只按短名称匹配, 不解析引用, 建索引时也能使用.
+ * 不解析引用时字段类型按文件的import确定, 确定不了的字段与解析引用时一样不生成列
+ */
+public class EntityTableUtils {
+    /**
+     * @param resolveType true时按字段类型的全限定名取jdbc类型(需要解析引用), false时按源码中的类型名推断
+     */
+    public static Table getTable(PsiClass aClass, boolean resolveType) {
+        Table table = new Table();
+        table.setTableName(getTableName(aClass));
+        table.setRemarks(getRemarks(aClass.getDocComment()));
+        table.setColumns(getColumns(aClass.getFields(), resolveType));
+        return table;
+    }
+
+    /**
+     * 是否带有@TableName、@Table或@Entity注解
+     */
+    public static boolean isEntity(PsiClass aClass) {
+        for (PsiAnnotation annotation : getAnnotations(aClass)) {
+            String name = getAnnotationName(annotation);
+            if (name.endsWith("TableName") || name.endsWith("Table") || name.endsWith("Entity")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getRemarks(PsiDocComment comment) {
+        if (comment != null) {
+            for (PsiElement descriptionElement : comment.getDescriptionElements()) {
+                if (descriptionElement instanceof PsiDocToken) {
+                    return descriptionElement.getText().trim();
+                }
+            }
+        }
+        return "";
+    }
+
+    private static String getTableName(PsiClass aClass) {
+        for (PsiAnnotation annotation : getAnnotations(aClass)) {
+            String name = getAnnotationName(annotation);
+            if (name.endsWith("TableName")) {
+                String value = getAttributeText(annotation, "value");
+                if (value == null) {
+                    break;
+                }
+                return value;
+            } else if (name.endsWith("Table")) {
+                String value = getAttributeText(annotation, "name");
+                if (value == null) {
+                    break;
+                }
+                return value;
+            }
+        }
+        return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, aClass.getName());
+    }
+
+    private static List<Column> getColumns(PsiField[] fields, boolean resolveType) {
+        List<Column> columns = new ArrayList<>();
+        for (PsiField field : fields) {
+            if (null == field.getName()) {
+                continue;
+            }
+            Integer ofType = getType(field, resolveType);
+            if (ofType == null) {
+                continue;
+            }
+            Column column = new Column();
+            column.setColumnName(getColumnName(field));
+            column.setRemarks(getRemarks(field.getDocComment()));
+            column.setType(ofType);
+            Boolean primaryKey = getPrimaryKey(field);
+            if (primaryKey) {
+                columns.forEach(c -> c.setPrimaryKey(false));
+            }
+            column.setPrimaryKey(primaryKey);
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private static Integer getType(PsiField field, boolean resolveType) {
+        if (resolveType) {
+            return ofType(field.getType().getCanonicalText());
+        }
+        PsiTypeElement typeElement = field.getTypeElement();
+        if (typeElement == null) {
+            return null;
+        }
+        String typeName = typeElement.getText();
+        if (typeName.contains(".")) {
+            return ofType(typeName);
+        }
+        String className = getImportedClassName(field.getContainingFile(), typeName);
+        return className == null ? null : ofType(className);
+    }
+
+    /**
+     * 按文件的import推断短类型名的全限定名, 只读取import文本不做解析, 与编译器的查找顺序一致:
+     * 单类型import优先, 其次java.lang, 最后按需导入(import xx.*)中唯一能加载到的类; 无法确定时返回null
+     */
+    private static String getImportedClassName(PsiFile file, String typeName) {
+        PsiImportList importList = file instanceof PsiJavaFile ? ((PsiJavaFile) file).getImportList() : null;
+        if (importList != null) {
+            for (PsiImportStatement importStatement : importList.getImportStatements()) {
+                String qualifiedName = importStatement.getQualifiedName();
+                if (!importStatement.isOnDemand() && qualifiedName != null && qualifiedName.endsWith("." + typeName)) {
+                    return qualifiedName;
+                }
+            }
+        }
+        if (isLoadable("java.lang." + typeName)) {
+            return "java.lang." + typeName;
+        }
+        if (importList == null) {
+            return null;
+        }
+        String className = null;
+        for (PsiImportStatement importStatement : importList.getImportStatements()) {
+            String qualifiedName = importStatement.getQualifiedName();
+            if (importStatement.isOnDemand() && qualifiedName != null && isLoadable(qualifiedName + "." + typeName)) {
+                if (className != null) {
+                    return null;
+                }
+                className = qualifiedName + "." + typeName;
+            }
+        }
+        return className;
+    }
+
+    private static boolean isLoadable(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return false;
+        }
+    }
+
+    private static Integer ofType(String className) {
+        try {
+            return JavaTypeUtils.ofType(Class.forName(className));
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return null;
+        }
+    }
+
+    private static Boolean getPrimaryKey(PsiField field) {
+        for (PsiAnnotation annotation : getAnnotations(field)) {
+            String name = getAnnotationName(annotation);
+            if (name.endsWith("TableId")) {
+                return true;
+            } else if (name.endsWith("Id")) {
+                return true;
+            }
+        }
+        return "id".equals(getColumnName(field));
+    }
+
+    private static String getColumnName(PsiField field) {
+        for (PsiAnnotation annotation : getAnnotations(field)) {
+            String name = getAnnotationName(annotation);
+            if (name.endsWith("TableField")) {
+                String value = getAttributeText(annotation, "value");
+                if (value == null) {
+                    break;
+                }
+                return value;
+            } else if (name.endsWith("Column")) {
+                String value = getAttributeText(annotation, "name");
+                if (value == null) {
+                    break;
+                }
+                return value;
+            }
+        }
+        return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName());
+    }
+
+    private static PsiAnnotation[] getAnnotations(PsiModifierListOwner owner) {
+        return owner.getModifierList() == null ? PsiAnnotation.EMPTY_ARRAY : owner.getModifierList().getAnnotations();
+    }
+
+    /**
+     * 注解的短名称, 取自源码不做解析
+     */
+    private static String getAnnotationName(PsiAnnotation annotation) {
+        PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+        String name = reference == null ? null : reference.getReferenceName();
+        return name == null ? "" : name;
+    }
+
+    /**
+     * 只取注解中显式声明的属性, 不解析注解类取默认值
+     */
+    private static String getAttributeText(PsiAnnotation annotation, String attribute) {
+        PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue(attribute);
+        if (value == null) {
+            return null;
+        }
+        return value.getText().replaceAll("(^\"|\"$)", "");
+    }
+}
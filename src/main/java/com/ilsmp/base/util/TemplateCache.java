@@ -0,0 +1,107 @@
+package com.ilsmp.base.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.mars05.crud.hub.common.exception.BizException;
+import freemarker.cache.StringTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+/**
+ * 已编译FreeMarker模板缓存, 以模板内容的SHA-256为key, LRU淘汰并限制占用内存
+ */
+public class TemplateCache {
+    private static final int MAX_ENTRIES = 2048;
+    /**
+     * 按源码字符数估算(含语法树开销), 约32MB
+     */
+    private static final long MAX_WEIGHT = 16L * 1024 * 1024;
+
+    private static final Configuration CONFIGURATION = newConfiguration();
+    private static final LinkedHashMap<String, Entry> CACHE = new LinkedHashMap<>(256, 0.75f, true);
+    private static long weight = 0;
+
+    public static Template getTemplate(String content) {
+        String key = HashUtils.sha256(content);
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(key);
+            if (entry != null) {
+                return entry.template;
+            }
+        }
+        //解析放在锁外, 并发解析同一模板时以先放入的为准
+        Entry entry = new Entry(newTemplate(content), content.length());
+        synchronized (CACHE) {
+            Entry exist = CACHE.get(key);
+            if (exist != null) {
+                return exist.template;
+            }
+            CACHE.put(key, entry);
+            weight += entry.weight;
+            evict();
+        }
+        return entry.template;
+    }
+
+    public static String processTemplate(String content, Object param) {
+        try {
+            StringWriter writer = new StringWriter();
+            getTemplate(content).process(param, writer);
+            return writer.toString();
+        } catch (Exception e) {
+            throw new BizException(e.getMessage(), e);
+        }
+    }
+
+    public static String processTemplateOfNoError(String content, Object param) {
+        try {
+            return processTemplate(content, param);
+        } catch (Exception e) {
+            return content;
+        }
+    }
+
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            weight = 0;
+        }
+    }
+
+    private static void evict() {
+        Iterator<Map.Entry<String, Entry>> iterator = CACHE.entrySet().iterator();
+        while ((CACHE.size() > MAX_ENTRIES || weight > MAX_WEIGHT) && CACHE.size() > 1 && iterator.hasNext()) {
+            weight -= iterator.next().getValue().weight;
+            iterator.remove();
+        }
+    }
+
+    private static Template newTemplate(String content) {
+        try {
+            return new Template(TemplateCache.class.getName(), content, CONFIGURATION);
+        } catch (IOException e) {
+            throw new BizException(e.getMessage(), e);
+        }
+    }
+
+    private static Configuration newConfiguration() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_31);
+        configuration.setTemplateLoader(new StringTemplateLoader());
+        configuration.setDefaultEncoding("UTF-8");
+        return configuration;
+    }
+
+    private static class Entry {
+        private final Template template;
+        private final long weight;
+
+        private Entry(Template template, long weight) {
+            this.template = template;
+            this.weight = weight;
+        }
+    }
+}
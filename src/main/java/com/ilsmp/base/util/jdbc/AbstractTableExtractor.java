@@ -0,0 +1,122 @@
+package com.ilsmp.base.util.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.mars05.crud.hub.common.enums.DatabaseTypeEnum;
+import com.github.mars05.crud.hub.common.exception.BizException;
+import com.github.mars05.crud.hub.common.model.Column;
+import com.github.mars05.crud.hub.common.model.Table;
+
+/**
+ * 批量表结构查询, 每批表只查一次表注释和一次字段(含注释、主键), 替代按表逐个遍历DatabaseMetaData.
+ * 字段类型按各驱动DatabaseMetaData.getColumns的DATA_TYPE规则换算, 与原有逐表查询结果保持一致
+ */
+public abstract class AbstractTableExtractor {
+    /**
+     * 每批表名数量, Oracle的IN列表上限为1000
+     */
+    private static final int BATCH_SIZE = 500;
+    protected static final int FETCH_SIZE = 500;
+
+    protected final Connection connection;
+
+    protected AbstractTableExtractor(Connection connection) {
+        this.connection = connection;
+    }
+
+    public static AbstractTableExtractor of(String databaseType, Connection connection) {
+        if (DatabaseTypeEnum.MYSQL.getCode().equals(databaseType)) {
+            return new MySqlTableExtractor(connection);
+        } else if (DatabaseTypeEnum.PG_SQL.getCode().equals(databaseType)) {
+            return new PostgreSqlTableExtractor(connection);
+        } else if (DatabaseTypeEnum.ORACLE.getCode().equals(databaseType)) {
+            return new OracleTableExtractor(connection);
+        }
+        throw new BizException("不支持的数据库类型[" + databaseType + "]");
+    }
+
+    /**
+     * 结果顺序与tableNameList一致, 不存在或没有字段的表不在结果中
+     */
+    public List<Table> getTables(String database, String schema, List<String> tableNameList) throws SQLException {
+        String owner = getOwner(database, schema);
+        Map<String, Table> tableMap = new HashMap<>();
+        for (int i = 0; i < tableNameList.size(); i += BATCH_SIZE) {
+            List<String> batch = tableNameList.subList(i, Math.min(i + BATCH_SIZE, tableNameList.size()));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            try (PreparedStatement statement = prepare(getTableSql(placeholders), owner, batch);
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Table table = new Table();
+                    table.setTableName(rs.getString("TABLE_NAME"));
+                    table.setRemarks(rs.getString("REMARKS"));
+                    table.setColumns(new ArrayList<>());
+                    tableMap.put(table.getTableName(), table);
+                }
+            }
+            try (PreparedStatement statement = prepare(getColumnSql(placeholders), owner, batch);
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Table table = tableMap.get(rs.getString("TABLE_NAME"));
+                    if (table == null) {
+                        continue;
+                    }
+                    Column column = new Column();
+                    column.setColumnName(rs.getString("COLUMN_NAME"));
+                    column.setRemarks(rs.getString("REMARKS"));
+                    column.setPrimaryKey(rs.getInt("PRIMARY_KEY") == 1);
+                    column.setType(getSqlType(rs.getString("DATA_TYPE"), rs.getString("COLUMN_TYPE")));
+                    table.getColumns().add(column);
+                }
+            }
+        }
+        List<Table> tables = new ArrayList<>(tableNameList.size());
+        for (String tableName : tableNameList) {
+            Table table = tableMap.get(tableName);
+            if (table != null && !table.getColumns().isEmpty()) {
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 表所属的库(MySQL)或模式(PG/Oracle), 未指定时取当前连接的
+     */
+    protected String getOwner(String database, String schema) throws SQLException {
+        return schema != null ? schema : connection.getSchema();
+    }
+
+    /**
+     * 参数依次为owner和表名, 返回TABLE_NAME, REMARKS
+     */
+    protected abstract String getTableSql(String placeholders);
+
+    /**
+     * 参数依次为owner和表名, 按表和字段顺序返回TABLE_NAME, COLUMN_NAME, DATA_TYPE, COLUMN_TYPE, REMARKS, PRIMARY_KEY(1/0)
+     */
+    protected abstract String getColumnSql(String placeholders);
+
+    /**
+     * 类型名换算为java.sql.Types
+     */
+    protected abstract int getSqlType(String dataType, String columnType);
+
+    protected PreparedStatement prepare(String sql, String owner, List<String> tableNameList) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statement.setFetchSize(FETCH_SIZE);
+        statement.setString(1, owner);
+        for (int i = 0; i < tableNameList.size(); i++) {
+            statement.setString(i + 2, tableNameList.get(i));
+        }
+        return statement;
+    }
+}
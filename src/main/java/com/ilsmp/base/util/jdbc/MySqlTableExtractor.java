@@ -0,0 +1,111 @@
+package com.ilsmp.base.util.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+public class MySqlTableExtractor extends AbstractTableExtractor {
+
+    public MySqlTableExtractor(Connection connection) {
+        super(connection);
+    }
+
+    @Override
+    protected String getOwner(String database, String schema) throws SQLException {
+        return database != null ? database : connection.getCatalog();
+    }
+
+    @Override
+    protected String getTableSql(String placeholders) {
+        return "SELECT TABLE_NAME, TABLE_COMMENT AS REMARKS FROM information_schema.TABLES"
+                + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME IN (" + placeholders + ")";
+    }
+
+    @Override
+    protected String getColumnSql(String placeholders) {
+        return "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, COLUMN_TYPE, COLUMN_COMMENT AS REMARKS,"
+                + " CASE WHEN COLUMN_KEY = 'PRI' THEN 1 ELSE 0 END AS PRIMARY_KEY"
+                + " FROM information_schema.COLUMNS"
+                + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME IN (" + placeholders + ")"
+                + " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+    }
+
+    /**
+     * 不设置useCursorFetch时只有Integer.MIN_VALUE能让驱动逐行读取
+     */
+    @Override
+    protected PreparedStatement prepare(String sql, String owner, List<String> tableNameList) throws SQLException {
+        PreparedStatement statement = super.prepare(sql, owner, tableNameList);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+
+    /**
+     * 同mysql-connector-java 8的MysqlType, tinyint(1)按tinyInt1isBit默认值视为BIT
+     */
+    @Override
+    protected int getSqlType(String dataType, String columnType) {
+        String type = dataType.toLowerCase();
+        boolean unsigned = columnType != null && columnType.toLowerCase().contains("unsigned");
+        switch (type) {
+            case "bit":
+                return Types.BIT;
+            case "tinyint":
+                if (columnType != null && columnType.toLowerCase().startsWith("tinyint(1)")) {
+                    return Types.BIT;
+                }
+                return unsigned ? Types.SMALLINT : Types.TINYINT;
+            case "smallint":
+                return unsigned ? Types.INTEGER : Types.SMALLINT;
+            case "mediumint":
+                return Types.INTEGER;
+            case "int":
+            case "integer":
+                return unsigned ? Types.BIGINT : Types.INTEGER;
+            case "bigint":
+                return Types.BIGINT;
+            case "float":
+                return Types.REAL;
+            case "double":
+            case "real":
+                return Types.DOUBLE;
+            case "decimal":
+            case "numeric":
+                return Types.DECIMAL;
+            case "date":
+            case "year":
+                return Types.DATE;
+            case "time":
+                return Types.TIME;
+            case "datetime":
+            case "timestamp":
+                return Types.TIMESTAMP;
+            case "char":
+            case "enum":
+            case "set":
+                return Types.CHAR;
+            case "varchar":
+            case "tinytext":
+                return Types.VARCHAR;
+            case "text":
+            case "mediumtext":
+            case "longtext":
+            case "json":
+                return Types.LONGVARCHAR;
+            case "binary":
+            case "geometry":
+                return Types.BINARY;
+            case "varbinary":
+            case "tinyblob":
+                return Types.VARBINARY;
+            case "blob":
+            case "mediumblob":
+            case "longblob":
+                return Types.LONGVARBINARY;
+            default:
+                return Types.OTHER;
+        }
+    }
+}
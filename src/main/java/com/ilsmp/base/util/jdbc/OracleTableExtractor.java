@@ -0,0 +1,89 @@
+package com.ilsmp.base.util.jdbc;
+
+import java.sql.Connection;
+import java.sql.Types;
+
+public class OracleTableExtractor extends AbstractTableExtractor {
+
+    public OracleTableExtractor(Connection connection) {
+        super(connection);
+    }
+
+    @Override
+    protected String getTableSql(String placeholders) {
+        return "SELECT TABLE_NAME, COMMENTS AS REMARKS FROM ALL_TAB_COMMENTS"
+                + " WHERE OWNER = ? AND TABLE_NAME IN (" + placeholders + ")";
+    }
+
+    @Override
+    protected String getColumnSql(String placeholders) {
+        return "SELECT c.TABLE_NAME, c.COLUMN_NAME, c.DATA_TYPE, c.DATA_TYPE AS COLUMN_TYPE, m.COMMENTS AS REMARKS,"
+                + " CASE WHEN p.COLUMN_NAME IS NULL THEN 0 ELSE 1 END AS PRIMARY_KEY"
+                + " FROM ALL_TAB_COLUMNS c"
+                + " LEFT JOIN ALL_COL_COMMENTS m"
+                + " ON m.OWNER = c.OWNER AND m.TABLE_NAME = c.TABLE_NAME AND m.COLUMN_NAME = c.COLUMN_NAME"
+                + " LEFT JOIN (SELECT cc.OWNER, cc.TABLE_NAME, cc.COLUMN_NAME FROM ALL_CONSTRAINTS k"
+                + " JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = k.OWNER AND cc.CONSTRAINT_NAME = k.CONSTRAINT_NAME"
+                + " WHERE k.CONSTRAINT_TYPE = 'P') p"
+                + " ON p.OWNER = c.OWNER AND p.TABLE_NAME = c.TABLE_NAME AND p.COLUMN_NAME = c.COLUMN_NAME"
+                + " WHERE c.OWNER = ? AND c.TABLE_NAME IN (" + placeholders + ")"
+                + " ORDER BY c.TABLE_NAME, c.COLUMN_ID";
+    }
+
+    /**
+     * 同ojdbc的getColumns, DATE按mapDateToTimestamp默认值视为TIMESTAMP
+     */
+    @Override
+    protected int getSqlType(String dataType, String columnType) {
+        if (dataType.startsWith("TIMESTAMP")) {
+            if (dataType.endsWith("WITH LOCAL TIME ZONE")) {
+                return -102;
+            } else if (dataType.endsWith("WITH TIME ZONE")) {
+                return -101;
+            }
+            return Types.TIMESTAMP;
+        } else if (dataType.startsWith("INTERVAL YEAR")) {
+            return -103;
+        } else if (dataType.startsWith("INTERVAL DAY")) {
+            return -104;
+        }
+        switch (dataType) {
+            case "CHAR":
+                return Types.CHAR;
+            case "NCHAR":
+                return Types.NCHAR;
+            case "VARCHAR2":
+                return Types.VARCHAR;
+            case "NVARCHAR2":
+                return Types.NVARCHAR;
+            case "NUMBER":
+                return Types.DECIMAL;
+            case "FLOAT":
+                return Types.FLOAT;
+            case "BINARY_FLOAT":
+                return 100;
+            case "BINARY_DOUBLE":
+                return 101;
+            case "LONG":
+                return Types.LONGVARCHAR;
+            case "DATE":
+                return Types.TIMESTAMP;
+            case "RAW":
+                return Types.VARBINARY;
+            case "LONG RAW":
+                return Types.LONGVARBINARY;
+            case "BLOB":
+                return Types.BLOB;
+            case "CLOB":
+                return Types.CLOB;
+            case "NCLOB":
+                return Types.NCLOB;
+            case "BFILE":
+                return -13;
+            case "XMLTYPE":
+                return Types.SQLXML;
+            default:
+                return Types.OTHER;
+        }
+    }
+}
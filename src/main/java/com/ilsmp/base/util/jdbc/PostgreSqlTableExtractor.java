@@ -0,0 +1,85 @@
+package com.ilsmp.base.util.jdbc;
+
+import java.sql.Connection;
+import java.sql.Types;
+
+/**
+ * information_schema在PG中是对系统表的多层视图, 这里直接查pg_catalog
+ */
+public class PostgreSqlTableExtractor extends AbstractTableExtractor {
+
+    public PostgreSqlTableExtractor(Connection connection) {
+        super(connection);
+    }
+
+    @Override
+    protected String getTableSql(String placeholders) {
+        return "SELECT c.relname AS TABLE_NAME, obj_description(c.oid, 'pg_class') AS REMARKS"
+                + " FROM pg_catalog.pg_class c JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+                + " WHERE n.nspname = ? AND c.relname IN (" + placeholders + ") AND c.relkind IN ('r', 'p')";
+    }
+
+    @Override
+    protected String getColumnSql(String placeholders) {
+        return "SELECT c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME, t.typname AS DATA_TYPE,"
+                + " format_type(a.atttypid, a.atttypmod) AS COLUMN_TYPE, col_description(c.oid, a.attnum) AS REMARKS,"
+                + " CASE WHEN EXISTS (SELECT 1 FROM pg_catalog.pg_index i"
+                + " WHERE i.indrelid = c.oid AND i.indisprimary AND a.attnum = ANY (i.indkey)) THEN 1 ELSE 0 END AS PRIMARY_KEY"
+                + " FROM pg_catalog.pg_attribute a"
+                + " JOIN pg_catalog.pg_class c ON c.oid = a.attrelid"
+                + " JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+                + " JOIN pg_catalog.pg_type t ON t.oid = a.atttypid"
+                + " WHERE n.nspname = ? AND c.relname IN (" + placeholders + ") AND a.attnum > 0 AND NOT a.attisdropped"
+                + " ORDER BY c.relname, a.attnum";
+    }
+
+    /**
+     * 同postgresql驱动TypeInfoCache
+     */
+    @Override
+    protected int getSqlType(String dataType, String columnType) {
+        if (dataType.startsWith("_")) {
+            return Types.ARRAY;
+        }
+        switch (dataType) {
+            case "int2":
+                return Types.SMALLINT;
+            case "int4":
+                return Types.INTEGER;
+            case "int8":
+            case "oid":
+                return Types.BIGINT;
+            case "numeric":
+                return Types.NUMERIC;
+            case "float4":
+                return Types.REAL;
+            case "float8":
+            case "money":
+                return Types.DOUBLE;
+            case "bool":
+            case "bit":
+                return Types.BIT;
+            case "char":
+            case "bpchar":
+                return Types.CHAR;
+            case "varchar":
+            case "text":
+            case "name":
+                return Types.VARCHAR;
+            case "bytea":
+                return Types.BINARY;
+            case "date":
+                return Types.DATE;
+            case "time":
+            case "timetz":
+                return Types.TIME;
+            case "timestamp":
+            case "timestamptz":
+                return Types.TIMESTAMP;
+            case "xml":
+                return Types.SQLXML;
+            default:
+                return Types.OTHER;
+        }
+    }
+}
@@ -12,7 +12,6 @@ import com.github.mars05.crud.hub.common.dto.ProjectTemplateDTO;
 import com.github.mars05.crud.hub.common.enums.ProjectTypeEnum;
 import com.github.mars05.crud.hub.common.exception.BizException;
 import com.github.mars05.crud.hub.common.service.ProjectService;
-import com.github.mars05.crud.hub.common.util.BeanUtils;
 import com.google.common.base.Preconditions;
 import com.ilsmp.base.icon.CrudIcons;
 import com.ilsmp.base.service.ProjectTemplateService;
@@ -26,6 +25,7 @@ import com.ilsmp.base.step.DdlStep;
 import com.ilsmp.base.step.MyTemplateStep;
 import com.ilsmp.base.ui.JavaView;
 import com.ilsmp.base.ui.MavenView;
+import com.ilsmp.base.util.ConvertUtils;
 import com.ilsmp.base.util.CrudUtils;
 import com.intellij.ide.util.projectWizard.ModuleBuilder;
 import com.intellij.ide.util.projectWizard.ModuleWizardStep;
@@ -41,7 +41,6 @@ import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.roots.ui.configuration.ModulesProvider;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileManager;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -261,11 +260,10 @@ public class CrudModuleBuilder extends ModuleBuilder {
 
         CrudSettings.currentGenerate().setProjectName(project.getName());
         CrudUtils.runWriteCommandAction(project, () -> {
-            ProjectGenerateReqDTO projectGenerateReqDTO = BeanUtils.convertBean(CrudSettings.currentGenerate(), ProjectGenerateReqDTO.class);
+            ProjectGenerateReqDTO projectGenerateReqDTO = ConvertUtils.toProjectGenerateReqDTO(CrudSettings.currentGenerate());
             ProjectRespDTO respDTO = projectService.generateProject(projectGenerateReqDTO);
             projectService.processFileToDisk(root.getCanonicalPath(), respDTO.getFiles());
-            VirtualFileManager.getInstance().asyncRefresh(() -> {
-            });
+            root.refresh(true, true);
         });
     }
 
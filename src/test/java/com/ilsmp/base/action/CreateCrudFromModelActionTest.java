@@ -0,0 +1,64 @@
+package com.ilsmp.base.action;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.actionSystem.ActionPlaces;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.impl.SimpleDataContext;
+import com.intellij.openapi.fileTypes.PlainTextFileType;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * 选中大量文件时update只按文件类型判断, 不加载PSI
+ */
+public class CreateCrudFromModelActionTest extends BasePlatformTestCase {
+    private static final int FILE_COUNT = 5000;
+    private static final long MAX_UPDATE_MILLIS = 200;
+
+    public void testUpdateEnabledForManyJavaFiles() {
+        VirtualFile[] virtualFiles = javaFiles(FILE_COUNT);
+        CreateCrudFromModelAction action = new CreateCrudFromModelAction();
+        //首次调用包含类加载, 不计时
+        action.update(newEvent(virtualFiles));
+
+        AnActionEvent event = newEvent(virtualFiles);
+        long start = System.nanoTime();
+        action.update(event);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(event.getPresentation().isEnabled());
+        assertTrue("update耗时" + elapsed + "ms, 超过" + MAX_UPDATE_MILLIS + "ms", elapsed < MAX_UPDATE_MILLIS);
+    }
+
+    public void testUpdateDisabledWhenNonJavaFileSelected() {
+        VirtualFile[] virtualFiles = Arrays.copyOf(javaFiles(FILE_COUNT), FILE_COUNT + 1);
+        virtualFiles[FILE_COUNT] = new LightVirtualFile("readme.txt", PlainTextFileType.INSTANCE, "readme");
+        AnActionEvent event = newEvent(virtualFiles);
+
+        new CreateCrudFromModelAction().update(event);
+
+        assertFalse(event.getPresentation().isEnabled());
+    }
+
+    private AnActionEvent newEvent(VirtualFile[] virtualFiles) {
+        return AnActionEvent.createFromDataContext(ActionPlaces.PROJECT_VIEW_POPUP, null, SimpleDataContext.builder()
+                .add(CommonDataKeys.PROJECT, getProject())
+                .add(CommonDataKeys.VIRTUAL_FILE_ARRAY, virtualFiles)
+                .build());
+    }
+
+    private static VirtualFile[] javaFiles(int count) {
+        VirtualFile[] virtualFiles = new VirtualFile[count];
+        for (int i = 0; i < count; i++) {
+            String text = "package com.ilsmp.test;\n\n@Entity\npublic class Entity" + i + " {\n    @Id\n    private Long id;\n}\n";
+            virtualFiles[i] = new LightVirtualFile("Entity" + i + ".java", JavaFileType.INSTANCE, text, StandardCharsets.UTF_8, 0);
+        }
+        return virtualFiles;
+    }
+}